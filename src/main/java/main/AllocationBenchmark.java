@@ -0,0 +1,76 @@
+package main;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import main.core.CommandFacade;
+import main.core.SystemState;
+import main.model.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the heap allocated while executing a command file, excluding
+ * parsing and writing: the commands are parsed once, then executed against
+ * a fresh state in every round. Error-heavy streams (unknown users,
+ * commands sent by the wrong role, rejected assignments) show the cost of
+ * the error paths.
+ */
+public final class AllocationBenchmark {
+    private AllocationBenchmark() {
+    }
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final int DEFAULT_ROUNDS = 5;
+
+    /**
+     * Usage: {@code AllocationBenchmark <inputFile> [rounds]}.
+     *
+     * @param args command line arguments
+     */
+    public static void main(final String[] args) {
+        if (args.length < 1) {
+            System.out.println("usage: AllocationBenchmark <inputFile> [rounds]");
+            return;
+        }
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+        ArrayNode users;
+        ArrayNode commands;
+        try {
+            users = App.loadUsers();
+            commands = InputFormat.read(new File(args[0]));
+        } catch (IOException e) {
+            System.out.println("error reading input: " + e.getMessage());
+            return;
+        }
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        for (int i = 0; i < rounds; i++) {
+            SystemState state = new SystemState();
+            for (JsonNode userNode : users) {
+                state.addUser(User.fromJson(userNode));
+            }
+            CommandFacade facade = new CommandFacade(state);
+            int outputs = 0;
+            long bytes = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            for (JsonNode cmdNode : commands) {
+                if (state.isStopped()) {
+                    break;
+                }
+                if (facade.execute(cmdNode) != null) {
+                    outputs++;
+                }
+            }
+            long nanos = System.nanoTime() - start;
+            bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+            System.out.printf("round %d: %d commands, %d outputs, %.1f ms, %d bytes"
+                            + " (%.0f bytes/command)%n",
+                    i + 1, commands.size(), outputs, nanos / NANOS_PER_MILLI, bytes,
+                    (double) bytes / commands.size());
+        }
+    }
+}
@@ -2,18 +2,21 @@ package main;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import main.core.CommandFacade;
+import main.core.CommandScheduler;
 import main.core.SystemState;
 import main.model.User;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * App represents the main application logic that processes input commands,
@@ -26,8 +29,6 @@ public final class App {
     private static final String INPUT_USERS_FIELD = "input/database/users.json";
 
     private static final ObjectMapper MAPPER = new ObjectMapper();
-    private static final ObjectWriter WRITER =
-            new ObjectMapper().writer().withDefaultPrettyPrinter();
 
     /**
      * Runs the application: reads commands from an input file,
@@ -37,35 +38,72 @@ public final class App {
      * @param outputPath path to the file where results should be written
      */
     public static void run(final String inputPath, final String outputPath) {
-        SystemState.getInstance().reset();
-        List<ObjectNode> outputs = new ArrayList<>();
+        run(inputPath, outputPath, OutputFormat.PRETTY);
+    }
 
+    /**
+     * Same as {@link #run(String, String)}, but writes the outputs in the
+     * given format.
+     *
+     * @param inputPath  path to the input file containing commands
+     * @param outputPath path to the file where results should be written
+     * @param format     encoding of the output file
+     */
+    public static void run(final String inputPath, final String outputPath,
+                           final OutputFormat format) {
         // 1) Load users
+        ArrayNode usersArray;
         try {
-            ArrayNode usersArray = (ArrayNode) MAPPER.readTree(new File(INPUT_USERS_FIELD));
-            for (JsonNode userNode : usersArray) {
-                User u = User.fromJson(userNode);
-                SystemState.getInstance().addUser(u);
-            }
+            usersArray = loadUsers();
         } catch (IOException e) {
             // If users can't be loaded, we can't do much. Still write empty output.
-            writeOutput(outputPath, outputs);
+            writeOutput(outputPath, new ArrayList<>(), format);
             return;
         }
+        run(usersArray, inputPath, outputPath, format);
+    }
+
+    /**
+     * Runs one command stream against a fresh {@link SystemState} built from
+     * an already parsed users array. The array is only read, so the same one
+     * can be shared by streams running on different threads.
+     *
+     * @param usersArray the contents of the users database
+     * @param inputPath  path to the input file containing commands
+     * @param outputPath path to the file where results should be written
+     */
+    public static void run(final ArrayNode usersArray, final String inputPath,
+                           final String outputPath) {
+        run(usersArray, inputPath, outputPath, OutputFormat.PRETTY);
+    }
+
+    /**
+     * Same as {@link #run(ArrayNode, String, String)}, but writes the outputs
+     * in the given format.
+     *
+     * @param usersArray the contents of the users database
+     * @param inputPath  path to the input file containing commands
+     * @param outputPath path to the file where results should be written
+     * @param format     encoding of the output file
+     */
+    public static void run(final ArrayNode usersArray, final String inputPath,
+                           final String outputPath, final OutputFormat format) {
+        SystemState state = newState(usersArray);
+        List<ObjectNode> outputs = new ArrayList<>();
 
         // 2) Load commands
         ArrayNode commands;
         try {
-            commands = (ArrayNode) MAPPER.readTree(new File(inputPath));
+            commands = InputFormat.read(new File(inputPath));
         } catch (IOException e) {
-            writeOutput(outputPath, outputs);
+            writeOutput(outputPath, outputs, format);
             return;
         }
 
         // 3) Process commands via facade
-        CommandFacade facade = new CommandFacade();
+        CommandFacade facade = new CommandFacade(state);
         Iterator<JsonNode> it = commands.elements();
-        while (it.hasNext() && !SystemState.getInstance().isStopped()) {
+        while (it.hasNext() && !state.isStopped()) {
             JsonNode cmdNode = it.next();
             ObjectNode out = facade.execute(cmdNode);
             if (out != null) {
@@ -74,14 +112,65 @@ public final class App {
         }
 
         // 4) Write outputs
-        writeOutput(outputPath, outputs);
+        writeOutput(outputPath, outputs, format);
     }
 
-    private static void writeOutput(final String outputPath, final List<ObjectNode> outputs) {
+    /**
+     * Same as {@link #run(String, String)}, but runs commands that do not
+     * conflict with each other in parallel on the given executor. The output
+     * file is identical to the one produced by the serial loop.
+     *
+     * @param inputPath  path to the input file containing commands
+     * @param outputPath path to the file where results should be written
+     * @param executor   pool running the non-conflicting commands
+     */
+    public static void runScheduled(final String inputPath, final String outputPath,
+                                    final Executor executor) {
+        List<ObjectNode> outputs = new ArrayList<>();
+        SystemState state;
+        ArrayNode commands;
         try {
-            File outputFile = new File(outputPath);
-            outputFile.getParentFile().mkdirs();
-            WRITER.withDefaultPrettyPrinter().writeValue(outputFile, outputs);
+            state = newState(loadUsers());
+            commands = InputFormat.read(new File(inputPath));
+        } catch (IOException e) {
+            writeOutput(outputPath, outputs, OutputFormat.PRETTY);
+            return;
+        }
+
+        CommandScheduler scheduler = new CommandScheduler(state, new CommandFacade(state),
+                executor);
+        outputs.addAll(scheduler.run(commands));
+        writeOutput(outputPath, outputs, OutputFormat.PRETTY);
+    }
+
+    private static SystemState newState(final ArrayNode usersArray) {
+        SystemState state = new SystemState();
+        for (JsonNode userNode : usersArray) {
+            User u = User.fromJson(userNode);
+            state.addUser(u);
+        }
+        return state;
+    }
+
+    /**
+     * Reads the users database shared by every project.
+     *
+     * @return the parsed users array
+     * @throws IOException if the file cannot be read
+     */
+    public static ArrayNode loadUsers() throws IOException {
+        return (ArrayNode) MAPPER.readTree(new File(INPUT_USERS_FIELD));
+    }
+
+    private static void writeOutput(final String outputPath, final List<ObjectNode> outputs,
+                                    final OutputFormat format) {
+        File outputFile = new File(outputPath);
+        outputFile.getParentFile().mkdirs();
+        try (OutputFormat.Sink sink = format.open(
+                new BufferedOutputStream(new FileOutputStream(outputFile)))) {
+            for (ObjectNode out : outputs) {
+                sink.write(out);
+            }
         } catch (IOException e) {
             System.out.println("error writing to output file: " + e.getMessage());
         }
@@ -0,0 +1,118 @@
+package main;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * BatchRunner processes many independent command streams, one per project,
+ * concurrently. Every stream runs against its own SystemState, so the only
+ * thing the workers share is the read-only users database.
+ */
+public final class BatchRunner {
+    private BatchRunner() {
+    }
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final double MILLIS_PER_SECOND = 1_000.0;
+
+    /**
+     * Runs every input file against its own state on a pool of worker threads.
+     *
+     * @param inputPaths  command files, one per project
+     * @param outputPaths output files, matched to {@code inputPaths} by index
+     * @param executor    pool the streams are submitted to
+     * @return the number of streams that completed without an error
+     */
+    public static int runAll(final List<String> inputPaths, final List<String> outputPaths,
+                             final ExecutorService executor) {
+        if (inputPaths.size() != outputPaths.size()) {
+            throw new IllegalArgumentException("Every input file needs an output file.");
+        }
+
+        ArrayNode usersArray;
+        try {
+            usersArray = App.loadUsers();
+        } catch (IOException e) {
+            System.out.println("error reading users: " + e.getMessage());
+            return 0;
+        }
+
+        List<Future<?>> pending = new ArrayList<>();
+        for (int i = 0; i < inputPaths.size(); i++) {
+            final String in = inputPaths.get(i);
+            final String out = outputPaths.get(i);
+            pending.add(executor.submit(() -> App.run(usersArray, in, out)));
+        }
+
+        int completed = 0;
+        for (int i = 0; i < pending.size(); i++) {
+            try {
+                pending.get(i).get();
+                completed++;
+            } catch (ExecutionException e) {
+                System.out.println("error processing " + inputPaths.get(i) + ": "
+                        + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Processes every {@code .json} file of a directory in parallel.
+     * Usage: {@code BatchRunner <inputDir> <outputDir> [threads|virtual]}.
+     * Output files keep the input file names.
+     *
+     * @param args command line arguments
+     */
+    public static void main(final String[] args) {
+        if (args.length < 2) {
+            System.out.println("usage: BatchRunner <inputDir> <outputDir> [threads|virtual]");
+            return;
+        }
+
+        File[] files = new File(args[0]).listFiles((dir, n) -> n.endsWith(".json"));
+        if (files == null) {
+            System.out.println("error reading input directory: " + args[0]);
+            return;
+        }
+        Arrays.sort(files);
+
+        List<String> inputs = new ArrayList<>();
+        List<String> outputs = new ArrayList<>();
+        for (File f : files) {
+            inputs.add(f.getPath());
+            outputs.add(new File(args[1], f.getName()).getPath());
+        }
+
+        String mode = args.length > 2 ? args[2]
+                : String.valueOf(Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = "virtual".equals(mode)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(Integer.parseInt(mode));
+
+        long start = System.nanoTime();
+        int completed;
+        try {
+            completed = runAll(inputs, outputs, executor);
+        } finally {
+            executor.shutdown();
+        }
+        double millis = (System.nanoTime() - start) / NANOS_PER_MILLI;
+
+        System.out.printf("processed %d/%d streams in %.1f ms (%.1f streams/s, %s threads)%n",
+                completed, inputs.size(), millis,
+                completed * MILLIS_PER_SECOND / millis, mode);
+    }
+}
@@ -0,0 +1,109 @@
+package main;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import main.core.CommandFacade;
+import main.core.SystemState;
+import main.model.User;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures ticket import throughput: the same generated tickets are created
+ * once through a single {@code importTickets} command and once as one
+ * {@code reportTicket} command each, against a fresh state in every round.
+ * Only command execution is timed; the commands are built up front.
+ */
+public final class ImportBenchmark {
+    private ImportBenchmark() {
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final int DEFAULT_ROUNDS = 5;
+    private static final String MANAGER = "gabriel_manager";
+    private static final String REPORTER = "theodora_reporter";
+    private static final String DATE = "2025-10-01";
+
+    /**
+     * Usage: {@code ImportBenchmark <tickets> [rounds]}.
+     *
+     * @param args command line arguments
+     */
+    public static void main(final String[] args) {
+        if (args.length < 1) {
+            System.out.println("usage: ImportBenchmark <tickets> [rounds]");
+            return;
+        }
+        int count = Integer.parseInt(args[0]);
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+        ArrayNode users;
+        try {
+            users = App.loadUsers();
+        } catch (IOException e) {
+            System.out.println("error reading users: " + e.getMessage());
+            return;
+        }
+
+        ObjectNode importCommand = command("importTickets", MANAGER);
+        ArrayNode entries = importCommand.putArray("tickets");
+        List<JsonNode> reportCommands = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ObjectNode params = MAPPER.createObjectNode()
+                    .put("type", "FEATURE_REQUEST")
+                    .put("title", "Imported ticket " + i)
+                    .put("businessPriority", "MEDIUM")
+                    .put("reportedBy", REPORTER)
+                    .put("businessValue", "M")
+                    .put("customerDemand", "HIGH");
+            entries.add(params);
+            ObjectNode report = command("reportTicket", REPORTER);
+            report.set("params", params);
+            reportCommands.add(report);
+        }
+
+        for (int i = 0; i < rounds; i++) {
+            CommandFacade facade = new CommandFacade(newState(users));
+            long start = System.nanoTime();
+            ObjectNode out = facade.execute(importCommand);
+            long importNanos = System.nanoTime() - start;
+            if (out.has("error")) {
+                System.out.println("import failed: " + out.get("error").asText());
+                return;
+            }
+
+            facade = new CommandFacade(newState(users));
+            start = System.nanoTime();
+            for (JsonNode report : reportCommands) {
+                facade.execute(report);
+            }
+            long reportNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d: %d tickets, import %.1f ms (%.0f tickets/s),"
+                            + " reportTicket %.1f ms (%.0f tickets/s)%n",
+                    i + 1, count,
+                    importNanos / NANOS_PER_MILLI, count * NANOS_PER_SECOND / importNanos,
+                    reportNanos / NANOS_PER_MILLI, count * NANOS_PER_SECOND / reportNanos);
+        }
+    }
+
+    private static ObjectNode command(final String name, final String username) {
+        return MAPPER.createObjectNode()
+                .put("command", name)
+                .put("username", username)
+                .put("timestamp", DATE);
+    }
+
+    private static SystemState newState(final ArrayNode users) {
+        SystemState state = new SystemState();
+        for (JsonNode userNode : users) {
+            state.addUser(User.fromJson(userNode));
+        }
+        return state;
+    }
+}
@@ -0,0 +1,68 @@
+package main;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Re-encodes a command file, streaming token by token, so inputs of any
+ * size convert in constant memory. The source format is detected; the
+ * commands themselves are copied unchanged.
+ */
+public final class InputConverter {
+    private InputConverter() {
+    }
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final int ARGS = 3;
+
+    /**
+     * @param input  a command file in any format
+     * @param output the file to write
+     * @param format the encoding to write it in
+     * @throws IOException if either file cannot be accessed
+     */
+    public static void convert(final File input, final File output, final InputFormat format)
+            throws IOException {
+        try (JsonParser p = InputFormat.open(input);
+             JsonGenerator g = format.createGenerator(
+                     new BufferedOutputStream(new FileOutputStream(output)))) {
+            if (p.nextToken() != null) {
+                g.copyCurrentStructure(p);
+            }
+        }
+    }
+
+    /**
+     * Usage: {@code InputConverter <inputFile> <outputFile> <json|smile|cbor>}.
+     *
+     * @param args command line arguments
+     */
+    public static void main(final String[] args) {
+        if (args.length < ARGS) {
+            System.out.println("usage: InputConverter <inputFile> <outputFile> <json|smile|cbor>");
+            return;
+        }
+        InputFormat format = InputFormat.of(args[2]);
+        if (format == null) {
+            System.out.println("unknown input format: " + args[2]);
+            return;
+        }
+        File input = new File(args[0]);
+        File output = new File(args[1]);
+        long start = System.nanoTime();
+        try {
+            convert(input, output, format);
+        } catch (IOException e) {
+            System.out.println("error converting input: " + e.getMessage());
+            return;
+        }
+        System.out.printf("converted %d bytes to %d bytes of %s in %.1f ms%n",
+                input.length(), output.length(), format.name().toLowerCase(),
+                (System.nanoTime() - start) / NANOS_PER_MILLI);
+    }
+}
@@ -0,0 +1,115 @@
+package main;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Encodings a command file can be read from. Binary files are recognized
+ * by their header, so the runners, the benchmarks, the query server's
+ * {@code --replay} and its load test client all accept any of them in
+ * place of a JSON file; {@link InputConverter} turns JSON inputs into
+ * binary ones.
+ *
+ * <p>The binary encodings skip text tokenization and number parsing. Smile
+ * files are also written with shared names and string values, so repeated
+ * command names, field names and usernames are stored once and referenced
+ * afterwards.
+ */
+public enum InputFormat {
+    /** JSON text, the historical format. */
+    JSON(new JsonFactory()),
+    /** Smile, recognized by its {@code :)\n} header. */
+    SMILE(SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build()),
+    /** CBOR, recognized by the self-describe tag it is written with. */
+    CBOR(CBORFactory.builder()
+            .enable(CBORGenerator.Feature.WRITE_TYPE_HEADER)
+            .build());
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int HEADER_LENGTH = 3;
+    private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+    private static final byte[] CBOR_HEADER = {(byte) 0xD9, (byte) 0xD9, (byte) 0xF7};
+
+    private final JsonFactory factory;
+
+    InputFormat(final JsonFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @param name a format name, in any case
+     * @return the format, or null if there is none by that name
+     */
+    public static InputFormat of(final String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param file a command file
+     * @return its encoding, judged by its first bytes
+     * @throws IOException if the file cannot be read
+     */
+    public static InputFormat detect(final File file) throws IOException {
+        byte[] header;
+        try (InputStream in = new FileInputStream(file)) {
+            header = in.readNBytes(HEADER_LENGTH);
+        }
+        if (Arrays.equals(header, SMILE_HEADER)) {
+            return SMILE;
+        }
+        if (Arrays.equals(header, CBOR_HEADER)) {
+            return CBOR;
+        }
+        return JSON;
+    }
+
+    /**
+     * @param file a command file in any format
+     * @return a parser over it
+     * @throws IOException if the file cannot be read
+     */
+    public static JsonParser open(final File file) throws IOException {
+        return detect(file).factory.createParser(file);
+    }
+
+    /**
+     * @param file a command file in any format
+     * @return its commands
+     * @throws IOException if the file cannot be read
+     */
+    public static ArrayNode read(final File file) throws IOException {
+        try (JsonParser p = open(file)) {
+            return (ArrayNode) MAPPER.readTree(p);
+        }
+    }
+
+    /**
+     * @param out the stream to write to
+     * @return a generator writing this format, header included
+     * @throws IOException if the stream cannot be written
+     */
+    public JsonGenerator createGenerator(final OutputStream out) throws IOException {
+        return factory.createGenerator(out);
+    }
+}
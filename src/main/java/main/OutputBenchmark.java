@@ -0,0 +1,84 @@
+package main;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import main.core.CommandFacade;
+import main.core.SystemState;
+import main.model.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the output formats on the outputs of one input file: the
+ * commands are executed once, then the same outputs are encoded in every
+ * {@link OutputFormat} to memory. Reports the best encode time over the
+ * rounds and the encoded size. Inputs with large {@code viewTickets}
+ * outputs show the differences best.
+ */
+public final class OutputBenchmark {
+    private OutputBenchmark() {
+    }
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final int DEFAULT_ROUNDS = 5;
+
+    /**
+     * Usage: {@code OutputBenchmark <inputFile> [rounds]}.
+     *
+     * @param args command line arguments
+     */
+    public static void main(final String[] args) {
+        if (args.length < 1) {
+            System.out.println("usage: OutputBenchmark <inputFile> [rounds]");
+            return;
+        }
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+
+        List<ObjectNode> outputs = new ArrayList<>();
+        try {
+            SystemState state = new SystemState();
+            for (JsonNode userNode : App.loadUsers()) {
+                state.addUser(User.fromJson(userNode));
+            }
+            CommandFacade facade = new CommandFacade(state);
+            for (JsonNode cmdNode : InputFormat.read(new File(args[0]))) {
+                if (state.isStopped()) {
+                    break;
+                }
+                ObjectNode out = facade.execute(cmdNode);
+                if (out != null) {
+                    outputs.add(out);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("error reading input: " + e.getMessage());
+            return;
+        }
+
+        System.out.printf("%d outputs, best of %d rounds%n", outputs.size(), rounds);
+        for (OutputFormat format : OutputFormat.values()) {
+            long best = Long.MAX_VALUE;
+            int size = 0;
+            for (int i = 0; i < rounds; i++) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                long start = System.nanoTime();
+                try (OutputFormat.Sink sink = format.open(buffer)) {
+                    for (ObjectNode out : outputs) {
+                        sink.write(out);
+                    }
+                } catch (IOException e) {
+                    System.out.println("error encoding " + format + ": " + e.getMessage());
+                    return;
+                }
+                best = Math.min(best, System.nanoTime() - start);
+                size = buffer.size();
+            }
+            System.out.printf("%-8s %9.1f ms %12d bytes%n",
+                    format.name().toLowerCase(), best / NANOS_PER_MILLI, size);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package main;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * Encodings an output file can be written in. Every format except
+ * {@link #RECORDS} writes the outputs as one array; {@link #PRETTY} is the
+ * historical format and the default.
+ */
+public enum OutputFormat {
+    /** Indented JSON text. */
+    PRETTY(new ObjectMapper()),
+    /** JSON text without whitespace. */
+    COMPACT(new ObjectMapper()),
+    /** Binary JSON, Jackson's Smile encoding. */
+    SMILE(new SmileMapper()),
+    /** Binary JSON, RFC 8949 CBOR. */
+    CBOR(new CBORMapper()),
+    /**
+     * One compact JSON record per output, each preceded by its length in
+     * bytes as a big-endian 32-bit integer, so a consumer can read the
+     * outputs one at a time without parsing the whole file.
+     */
+    RECORDS(new ObjectMapper());
+
+    /** Writes outputs one by one. */
+    public interface Sink extends Closeable {
+        /**
+         * @param output the next output
+         * @throws IOException if the stream cannot be written
+         */
+        void write(JsonNode output) throws IOException;
+    }
+
+    private final ObjectMapper mapper;
+
+    OutputFormat(final ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * @param name a format name, in any case
+     * @return the format, or null if there is none by that name
+     */
+    public static OutputFormat of(final String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Starts writing outputs. Closing the sink finishes the encoding and
+     * closes the stream.
+     *
+     * @param out the stream to write to
+     * @return a sink encoding outputs in this format
+     * @throws IOException if the stream cannot be written
+     */
+    public Sink open(final OutputStream out) throws IOException {
+        if (this == RECORDS) {
+            DataOutputStream data = new DataOutputStream(out);
+            ByteArrayOutputStream record = new ByteArrayOutputStream();
+            return new Sink() {
+                @Override
+                public void write(final JsonNode output) throws IOException {
+                    record.reset();
+                    try (JsonGenerator g = mapper.getFactory().createGenerator(record)) {
+                        mapper.writeTree(g, output);
+                    }
+                    data.writeInt(record.size());
+                    record.writeTo(data);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    data.close();
+                }
+            };
+        }
+        JsonGenerator g = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        if (this == PRETTY) {
+            g.setPrettyPrinter(new DefaultPrettyPrinter());
+        }
+        g.writeStartArray();
+        return new Sink() {
+            @Override
+            public void write(final JsonNode output) throws IOException {
+                mapper.writeTree(g, output);
+            }
+
+            @Override
+            public void close() throws IOException {
+                g.writeEndArray();
+                g.close();
+            }
+        };
+    }
+}
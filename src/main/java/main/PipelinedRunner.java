@@ -0,0 +1,250 @@
+package main;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import main.core.CommandFacade;
+import main.core.SystemState;
+import main.model.User;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Runs a command file as a three-stage pipeline: a parser thread streams
+ * commands out of the input file, the calling thread executes them one at a
+ * time through {@link CommandFacade}, and a writer thread encodes the
+ * outputs as they are produced. The stages are connected by bounded queues,
+ * so memory stays flat however large the input is.
+ *
+ * <p>The output file is identical to the one written by {@link App#run}.
+ * The only difference is a malformed input file: App writes an empty array,
+ * while the pipeline keeps the outputs of the commands before the bad one.
+ *
+ * <p>A failing stage never leaves the others blocked on a queue: a command
+ * that throws still closes the output file with the outputs before it, and
+ * a write error stops the other stages. Either exception is rethrown from
+ * {@link #run}.
+ */
+public final class PipelinedRunner {
+    private PipelinedRunner() {
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final double MILLIS_PER_SECOND = 1_000.0;
+    private static final int FORMAT_ARG = 3;
+
+    /** Marks the end of a queue. */
+    private static final JsonNode END = MissingNode.getInstance();
+
+    /**
+     * Runs the pipeline for one input file.
+     *
+     * @param inputPath  path to the input file containing commands
+     * @param outputPath path to the file where results should be written
+     */
+    public static void run(final String inputPath, final String outputPath) {
+        run(inputPath, outputPath, OutputFormat.PRETTY);
+    }
+
+    /**
+     * Runs the pipeline for one input file, writing the outputs in the given
+     * format.
+     *
+     * @param inputPath  path to the input file containing commands
+     * @param outputPath path to the file where results should be written
+     * @param format     encoding of the output file
+     * @throws UncheckedIOException if the output file cannot be written
+     */
+    public static void run(final String inputPath, final String outputPath,
+                           final OutputFormat format) {
+        ArrayNode usersArray;
+        try {
+            usersArray = App.loadUsers();
+        } catch (IOException e) {
+            App.run(inputPath, outputPath, format); // writes the usual empty output
+            return;
+        }
+
+        SystemState state = new SystemState();
+        for (JsonNode userNode : usersArray) {
+            state.addUser(User.fromJson(userNode));
+        }
+        CommandFacade facade = new CommandFacade(state);
+
+        BlockingQueue<JsonNode> commands = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        BlockingQueue<JsonNode> outputs = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        // The writer records its failure and interrupts this thread, which
+        // may be blocked on a full output queue that nobody drains anymore.
+        Thread caller = Thread.currentThread();
+        AtomicReference<RuntimeException> writeError = new AtomicReference<>();
+        Thread parser = new Thread(() -> parse(inputPath, commands), "pipeline-parse");
+        Thread writer = new Thread(() -> write(outputPath, outputs, format, e -> {
+            writeError.set(e);
+            caller.interrupt();
+        }), "pipeline-write");
+        parser.start();
+        writer.start();
+
+        boolean interrupted = false;
+        try {
+            while (writeError.get() == null) {
+                JsonNode cmdNode = commands.take();
+                if (cmdNode == END || state.isStopped()) {
+                    break;
+                }
+                ObjectNode out = facade.execute(cmdNode);
+                if (out != null) {
+                    outputs.put(out);
+                }
+            }
+        } catch (InterruptedException e) {
+            interrupted = writeError.get() == null;
+        } finally {
+            parser.interrupt(); // it may still be parsing commands nobody will run
+            interrupted |= finish(parser, writer, outputs, writeError);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (writeError.get() != null) {
+            throw writeError.get();
+        }
+    }
+
+    /**
+     * Ends the output stream and waits for both stages to exit. END is not
+     * queued once the writer has failed, since nothing would take it.
+     *
+     * @return whether this thread was interrupted by anything but the writer
+     */
+    private static boolean finish(final Thread parser, final Thread writer,
+                                  final BlockingQueue<JsonNode> outputs,
+                                  final AtomicReference<RuntimeException> writeError) {
+        boolean interrupted = false;
+        boolean ended = false;
+        while (true) {
+            try {
+                if (!ended && writeError.get() == null) {
+                    outputs.put(END);
+                }
+                ended = true;
+                writer.join();
+                parser.join();
+                return interrupted;
+            } catch (InterruptedException e) {
+                interrupted |= writeError.get() == null;
+            }
+        }
+    }
+
+    private static void parse(final String inputPath, final BlockingQueue<JsonNode> commands) {
+        try (JsonParser p = InputFormat.open(new File(inputPath))) {
+            if (p.nextToken() == JsonToken.START_ARRAY) {
+                while (p.nextToken() == JsonToken.START_OBJECT) {
+                    commands.put(MAPPER.readTree(p));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("error reading input file: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            commands.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void write(final String outputPath, final BlockingQueue<JsonNode> outputs,
+                              final OutputFormat format,
+                              final Consumer<RuntimeException> onFailure) {
+        File outputFile = new File(outputPath).getAbsoluteFile();
+        outputFile.getParentFile().mkdirs();
+        try (OutputFormat.Sink sink = format.open(
+                new BufferedOutputStream(new FileOutputStream(outputFile)))) {
+            while (true) {
+                JsonNode out = outputs.take();
+                if (out == END) {
+                    break;
+                }
+                sink.write(out);
+            }
+        } catch (IOException e) {
+            onFailure.accept(new UncheckedIOException(e));
+        } catch (RuntimeException e) {
+            onFailure.accept(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Compares the pipeline with the serial loop of {@link App#run} on one
+     * input file. Usage:
+     * {@code PipelinedRunner <inputFile> <outputFile> [rounds] [format]}.
+     *
+     * @param args command line arguments
+     */
+    public static void main(final String[] args) {
+        if (args.length < 2) {
+            System.out.println("usage: PipelinedRunner <inputFile> <outputFile> [rounds] [format]");
+            return;
+        }
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        OutputFormat format = args.length > FORMAT_ARG
+                ? OutputFormat.of(args[FORMAT_ARG]) : OutputFormat.PRETTY;
+        if (format == null) {
+            System.out.println("unknown output format: " + args[FORMAT_ARG]);
+            return;
+        }
+        int commandCount;
+        try {
+            commandCount = InputFormat.read(new File(args[0])).size();
+        } catch (IOException e) {
+            System.out.println("error reading input file: " + e.getMessage());
+            return;
+        }
+
+        for (int i = 0; i < rounds; i++) {
+            long serial = time(() -> App.run(args[0], args[1], format));
+            long pipelined;
+            try {
+                pipelined = time(() -> run(args[0], args[1], format));
+            } catch (UncheckedIOException e) {
+                System.out.println("error writing to output file: " + e.getCause().getMessage());
+                return;
+            }
+            System.out.printf("round %d: serial %.1f ms (%.0f cmd/s),"
+                            + " pipelined %.1f ms (%.0f cmd/s)%n",
+                    i + 1, serial / NANOS_PER_MILLI, rate(commandCount, serial),
+                    pipelined / NANOS_PER_MILLI, rate(commandCount, pipelined));
+        }
+    }
+
+    private static long time(final Runnable r) {
+        long start = System.nanoTime();
+        r.run();
+        return System.nanoTime() - start;
+    }
+
+    private static double rate(final int commands, final long nanos) {
+        return commands * MILLIS_PER_SECOND / (nanos / NANOS_PER_MILLI);
+    }
+}
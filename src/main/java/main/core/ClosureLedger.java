@@ -0,0 +1,208 @@
+package main.core;
+
+import main.model.Ticket;
+import main.model.TicketAction;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Closed tickets per developer, for performance reports over any window.
+ *
+ * <p>A ticket counts as closed on the date it first reached CLOSED, for the
+ * developer it is currently assigned to, with a resolution time of
+ * {@code solvedAt - assignedAt + 1} days. Undoing a closure and reassigning
+ * the ticket move its entry, so every recorded action refreshes the entry
+ * of its ticket.
+ *
+ * <p>Each developer's closures are kept in date order with prefix sums of
+ * their resolution days; a window is answered with two binary searches.
+ * Closures arrive in date order and are appended in O(1); an entry that
+ * moves out of order only marks the developer's arrays for a rebuild on
+ * the next query.
+ */
+public final class ClosureLedger {
+    private static final int INITIAL_CAPACITY = 8;
+
+    /** One closed ticket. */
+    private static final class Closure {
+        private final int ticketId;
+        private final String developer;
+        private final long day;
+        private final int resolutionDays;
+
+        Closure(final int ticketId, final String developer, final long day,
+                final int resolutionDays) {
+            this.ticketId = ticketId;
+            this.developer = developer;
+            this.day = day;
+            this.resolutionDays = resolutionDays;
+        }
+
+        boolean sameAs(final Closure o) {
+            return developer.equals(o.developer) && day == o.day
+                    && resolutionDays == o.resolutionDays;
+        }
+    }
+
+    /** The closures of one developer, by day. */
+    private static final class Entries {
+        private final List<Closure> closures = new ArrayList<>();
+        private long[] days = new long[INITIAL_CAPACITY];
+        // prefixDays[i] = resolution days of closures[0..i)
+        private long[] prefixDays = new long[INITIAL_CAPACITY + 1];
+        private boolean dirty;
+
+        void add(final Closure c) {
+            boolean inOrder = closures.isEmpty()
+                    || closures.get(closures.size() - 1).day <= c.day;
+            closures.add(c);
+            if (!inOrder || dirty) {
+                dirty = true;
+                return;
+            }
+            int n = closures.size();
+            if (n > days.length) {
+                days = Arrays.copyOf(days, days.length * 2);
+                prefixDays = Arrays.copyOf(prefixDays, days.length + 1);
+            }
+            days[n - 1] = c.day;
+            prefixDays[n] = prefixDays[n - 1] + c.resolutionDays;
+        }
+
+        void remove(final Closure c) {
+            closures.remove(c);
+            dirty = true;
+        }
+
+        void rebuild() {
+            closures.sort(Comparator.<Closure>comparingLong(c -> c.day)
+                    .thenComparingInt(c -> c.ticketId));
+            int n = closures.size();
+            days = new long[Math.max(n, INITIAL_CAPACITY)];
+            prefixDays = new long[days.length + 1];
+            for (int i = 0; i < n; i++) {
+                days[i] = closures.get(i).day;
+                prefixDays[i + 1] = prefixDays[i] + closures.get(i).resolutionDays;
+            }
+            dirty = false;
+        }
+
+        /** Index of the first closure on or after {@code day}. */
+        int lowerBound(final long day) {
+            int lo = 0;
+            int hi = closures.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (days[mid] < day) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    /** Closures of a developer within a window. */
+    public static final class Totals {
+        private final int closed;
+        private final long resolutionDays;
+
+        Totals(final int closed, final long resolutionDays) {
+            this.closed = closed;
+            this.resolutionDays = resolutionDays;
+        }
+
+        /**
+         * @return the number of tickets closed in the window
+         */
+        public int getClosed() {
+            return closed;
+        }
+
+        /**
+         * @return their summed resolution times, in days
+         */
+        public long getResolutionDays() {
+            return resolutionDays;
+        }
+    }
+
+    private final Map<Integer, LocalDate> firstClosed = new HashMap<>();
+    private final Map<Integer, Closure> byTicket = new HashMap<>();
+    private final Map<String, Entries> byDeveloper = new HashMap<>();
+
+    /**
+     * Refreshes the entry of a ticket after an action was recorded on it.
+     *
+     * @param t      the ticket, with its other fields already updated
+     * @param action the action just recorded
+     */
+    public void actionRecorded(final Ticket t, final TicketAction action) {
+        if ("STATUS_CHANGED".equals(action.getAction()) && "CLOSED".equals(action.getTo())) {
+            firstClosed.putIfAbsent(t.getId(), LocalDate.parse(action.getTimestamp()));
+        }
+        LocalDate closedOn = firstClosed.get(t.getId());
+        if (closedOn == null) {
+            return;
+        }
+        Closure previous = byTicket.get(t.getId());
+        Closure current = t.getAssignedTo().isEmpty() ? null
+                : new Closure(t.getId(), t.getAssignedTo(), closedOn.toEpochDay(),
+                        resolutionDays(t));
+        if (previous != null && current != null && previous.sameAs(current)) {
+            return;
+        }
+        if (previous != null) {
+            byTicket.remove(t.getId());
+            byDeveloper.get(previous.developer).remove(previous);
+        }
+        if (current != null) {
+            byTicket.put(t.getId(), current);
+            byDeveloper.computeIfAbsent(current.developer, k -> new Entries()).add(current);
+        }
+    }
+
+    private static int resolutionDays(final Ticket t) {
+        return Math.toIntExact(ChronoUnit.DAYS.between(LocalDate.parse(t.getAssignedAt()),
+                LocalDate.parse(t.getSolvedAt()))) + 1;
+    }
+
+    /**
+     * @param developer a developer's username
+     * @param from      the first day of the window, inclusive
+     * @param to        the last day of the window, inclusive
+     * @return the developer's closures within the window
+     */
+    public Totals totals(final String developer, final LocalDate from, final LocalDate to) {
+        Entries entries = byDeveloper.get(developer);
+        if (entries == null) {
+            return new Totals(0, 0);
+        }
+        if (entries.dirty) {
+            entries.rebuild();
+        }
+        int lo = entries.lowerBound(from.toEpochDay());
+        int hi = entries.lowerBound(to.toEpochDay() + 1);
+        if (hi <= lo) {
+            return new Totals(0, 0);
+        }
+        return new Totals(hi - lo, entries.prefixDays[hi] - entries.prefixDays[lo]);
+    }
+
+    /**
+     * Forgets every closure.
+     */
+    public void clear() {
+        firstClosed.clear();
+        byTicket.clear();
+        byDeveloper.clear();
+    }
+}
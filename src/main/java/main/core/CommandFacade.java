@@ -3,6 +3,7 @@ package main.core;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 import main.model.BusinessPriority;
 import main.model.Comment;
 import main.model.ExpertiseArea;
@@ -17,18 +18,61 @@ import main.model.Manager;
 import main.model.SeniorityLevel;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
 public final class CommandFacade {
-    private final SystemState state = SystemState.getInstance();
+    private final SystemState state;
 
     private final Map<String, Role[]> permissions = new HashMap<>();
+    /** Permission error of every command, by the ordinal of the rejected role. */
+    private final Map<String, TextNode[]> permissionErrors = new HashMap<>();
+    private String lastTimestamp;
+    private java.time.LocalDate lastDay;
+
+    private static final int SEARCH_PLAN_CACHE_SIZE = 64;
+    private static final int ERROR_CACHE_SIZE = 256;
+    private static final int ERROR_CACHE_CAPACITY = 16;
+    private static final float ERROR_CACHE_LOAD_FACTOR = 0.75f;
+    /** Outcome of a ticket mutation that was skipped without an error output. */
+    private static final String IGNORED = "";
+    /** End of the expertise error of assignTicket, by ticket area and developer area. */
+    private static final String[][] EXPERTISE_ERRORS =
+            new String[ExpertiseArea.values().length][ExpertiseArea.values().length];
+
+    static {
+        for (ExpertiseArea ticketArea : ExpertiseArea.values()) {
+            for (ExpertiseArea devSpec : ExpertiseArea.values()) {
+                EXPERTISE_ERRORS[ticketArea.ordinal()][devSpec.ordinal()] =
+                        " due to expertise area. Required: "
+                                + requiredExpertiseString(ticketArea)
+                                + "; Current: " + devSpec.name() + ".";
+            }
+        }
+    }
+    /** Compiled ticket searches by role and filters; searches run under the read lock. */
+    private final Map<String, TicketSearchPlan> searchPlans = java.util.Collections
+            .synchronizedMap(new java.util.LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                        final Map.Entry<String, TicketSearchPlan> eldest) {
+                    return size() > SEARCH_PLAN_CACHE_SIZE;
+                }
+            });
 
-    public CommandFacade() {
+    /** Errors naming a value of the command, built once per recently seen value. */
+    private final Map<String, TextNode> unknownUserErrors = errorCache();
+    private final Map<String, TextNode> notDeveloperErrors = errorCache();
+    private final Map<Object, TextNode> unknownTicketErrors = errorCache();
+    private final Map<String, TextNode> unknownMilestoneErrors = errorCache();
+
+    public CommandFacade(final SystemState state) {
+        this.state = state;
         permissions.put("reportTicket", new Role[]{Role.REPORTER});
+        permissions.put("importTickets", new Role[]{Role.MANAGER});
         permissions.put("viewTickets", new Role[]{Role.REPORTER, Role.DEVELOPER, Role.MANAGER});
         permissions.put("startTestingPhase", new Role[]{Role.MANAGER});
         permissions.put("lostInvestors", new Role[]{Role.MANAGER});
@@ -36,12 +80,16 @@ public final class CommandFacade {
         // Test 2
         permissions.put("createMilestone", new Role[]{Role.MANAGER});
         permissions.put("viewMilestones", new Role[]{Role.MANAGER, Role.DEVELOPER});
+        permissions.put("viewMilestoneDependencies", new Role[]{Role.MANAGER, Role.DEVELOPER});
         permissions.put("assignTicket", new Role[]{Role.DEVELOPER});
         permissions.put("undoAssignTicket", new Role[]{Role.DEVELOPER});
         permissions.put("viewAssignedTickets", new Role[]{Role.DEVELOPER});
         permissions.put("addComment", new Role[]{Role.REPORTER, Role.DEVELOPER, Role.MANAGER});
         permissions.put("undoAddComment", new Role[]{Role.REPORTER, Role.DEVELOPER, Role.MANAGER});
         permissions.put("changeStatus", new Role[]{Role.DEVELOPER});
+        permissions.put("bulkAssignTickets", new Role[]{Role.DEVELOPER});
+        permissions.put("bulkChangeStatus", new Role[]{Role.DEVELOPER});
+        permissions.put("bulkAddComment", new Role[]{Role.REPORTER, Role.DEVELOPER, Role.MANAGER});
         permissions.put("viewTicketHistory", new Role[]{Role.DEVELOPER, Role.MANAGER});
         permissions.put("undoChangeStatus", new Role[]{Role.DEVELOPER});
         permissions.put("search", new Role[]{Role.MANAGER, Role.DEVELOPER, Role.REPORTER});
@@ -52,9 +100,53 @@ public final class CommandFacade {
         permissions.put("generateResolutionEfficiencyReport", new Role[]{Role.MANAGER});
         permissions.put("appStabilityReport", new Role[]{Role.MANAGER});
         permissions.put("generatePerformanceReport", new Role[]{Role.MANAGER});
+        permissions.put("viewMetricsHistory", new Role[]{Role.MANAGER});
+
+        for (Map.Entry<String, Role[]> e : permissions.entrySet()) {
+            TextNode[] errors = new TextNode[Role.values().length];
+            for (Role role : Role.values()) {
+                errors[role.ordinal()] = TextNode.valueOf(permissionMessage(role, e.getValue()));
+            }
+            permissionErrors.put(e.getKey(), errors);
+        }
+    }
 
+    /**
+     * Commands that only read state once their preparation step (see
+     * {@link #prepareRead}) has run. They execute under the shared read lock
+     * and may therefore overlap with each other.
+     */
+    private static final Set<String> READ_ONLY = Set.of(
+            "viewTickets",
+            "viewMilestones",
+            "viewMilestoneDependencies",
+            "viewAssignedTickets",
+            "viewTicketHistory",
+            "search",
+            "generateCustomerImpactReport",
+            "generateTicketRiskReport",
+            "generateResolutionEfficiencyReport",
+            "appStabilityReport",
+            "viewMetricsHistory"
+    );
+
+    /**
+     * @param command a command name
+     * @return whether the command runs under the read lock
+     */
+    static boolean isReadOnly(final String command) {
+        return READ_ONLY.contains(command);
     }
 
+    /**
+     * Executes one command. Time-driven automations and every mutation run
+     * under the state's write lock; read-only commands then downgrade to the
+     * read lock, so they observe their own automations but never block other
+     * readers while rendering.
+     *
+     * @param cmdNode the command as read from the input
+     * @return the command output, or null when the command produces none
+     */
     public ObjectNode execute(final JsonNode cmdNode) {
         String command = cmdNode.get("command").asText();
         String username = cmdNode.get("username").asText();
@@ -63,20 +155,68 @@ public final class CommandFacade {
         User user = state.getUser(username);
         if (user == null) {
             return OutputBuilder.start(command, username, timestamp)
-                    .error("The user " + username + " does not exist.")
+                    .error(unknownUser(username))
                     .build();
         }
-        processMilestoneAutomations(timestamp);
-        Role[] allowed = permissions.get(command);
-        if (allowed != null && !hasRole(user.getRole(), allowed)) {
-            return OutputBuilder.start(command, username, timestamp)
-                    .error(permissionMessage(command, user.getRole(), allowed))
-                    .build();
+
+        Lock writeLock = state.writeLock();
+        Lock readLock = state.readLock();
+        writeLock.lock();
+        try {
+            java.time.LocalDate day = dayOf(timestamp);
+            state.getMetricsHistory().advanceTo(day, state);
+            processMilestoneAutomations(day);
+            Role[] allowed = permissions.get(command);
+            if (allowed != null && !hasRole(user.getRole(), allowed)) {
+                return OutputBuilder.start(command, username, timestamp)
+                        .error(permissionErrors.get(command)[user.getRole().ordinal()])
+                        .build();
+            }
+            if (!READ_ONLY.contains(command)) {
+                return dispatch(command, cmdNode, user);
+            }
+            String inputError = PageRequest.validate(cmdNode);
+            if (inputError == null) {
+                inputError = FieldProjection.validate(cmdNode);
+            }
+            if (inputError != null) {
+                return OutputBuilder.start(command, username, timestamp).error(inputError).build();
+            }
+            prepareRead(command, user, timestamp);
+            readLock.lock();
+        } finally {
+            writeLock.unlock();
+        }
+
+        try {
+            return dispatch(command, cmdNode, user);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Applies the side effects that the read-only commands used to perform
+     * while rendering, so that rendering itself never writes.
+     */
+    private void prepareRead(final String command, final User user, final String timestamp) {
+        switch (command) {
+            case "viewMilestones":
+                for (Milestone m : visibleMilestones(user)) {
+                    m.settleCompletion(state, timestamp);
+                }
+                break;
+            default:
+                break;
         }
+    }
 
+    private ObjectNode dispatch(final String command, final JsonNode cmdNode, final User user) {
         switch (command) {
             case "reportTicket":
                 return handleReportTicket(cmdNode, user);
+            case "importTickets":
+                return handleImportTickets(cmdNode);
             case "viewTickets":
                 return handleViewTickets(cmdNode, user);
             case "startTestingPhase":
@@ -89,6 +229,8 @@ public final class CommandFacade {
                 return handleCreateMilestone(cmdNode, user);
             case "viewMilestones":
                 return handleViewMilestones(cmdNode, user);
+            case "viewMilestoneDependencies":
+                return handleViewMilestoneDependencies(cmdNode);
             case "viewAssignedTickets":
                 return handleViewAssignedTickets(cmdNode, user);
             case "undoAssignTicket":
@@ -111,10 +253,21 @@ public final class CommandFacade {
                 return handleGenerateResolutionEfficiencyReport(cmdNode, user);
             case "appStabilityReport":
                 return handleAppStabilityReport(cmdNode, user);
+            case "viewMetricsHistory":
+                return handleViewMetricsHistory(cmdNode);
             case "changeStatus":
                 return handleChangeStatus(cmdNode, user);
             case "assignTicket":
                 return handleAssignTicket(cmdNode, user);
+            case "bulkAssignTickets":
+                return handleBulk(cmdNode, user,
+                        (ticketId, timestamp) -> assignTicket(user, ticketId, timestamp));
+            case "bulkChangeStatus":
+                return handleBulk(cmdNode, user,
+                        (ticketId, timestamp) -> changeStatus(user, ticketId, timestamp));
+            case "bulkAddComment":
+                return handleBulk(cmdNode, user, (ticketId, timestamp) -> addComment(user,
+                        ticketId, cmdNode.path("comment").asText(null), timestamp));
             case "generatePerformanceReport":
                 return handleGeneratePerformanceReport(cmdNode, user);
             default:
@@ -123,7 +276,20 @@ public final class CommandFacade {
     }
 
     // --- Existing handlers (keep yours if already correct) ---
-    private void processMilestoneAutomations(final String nowIso) {
+    /**
+     * Parses the date of a command. Commands arrive in date order, so the
+     * last date is kept and most commands skip the parse; called under the
+     * write lock.
+     */
+    private java.time.LocalDate dayOf(final String timestamp) {
+        if (!timestamp.equals(lastTimestamp)) {
+            lastDay = java.time.LocalDate.parse(timestamp);
+            lastTimestamp = timestamp;
+        }
+        return lastDay;
+    }
+
+    private void processMilestoneAutomations(final java.time.LocalDate now) {
 
         // Track historical blocked state
 
@@ -134,20 +300,19 @@ public final class CommandFacade {
         }
 
 
-        java.time.LocalDate now = java.time.LocalDate.parse(nowIso);
+        // Priority escalation of milestones that crossed a due-date threshold
+        state.getEscalations().advance(now,
+                ms -> state.getMilestone(ms.getName()) == ms && ms.isActive(state),
+                this::escalate);
 
+        java.time.LocalDate tomorrow = now.plusDays(1);
         for (Milestone ms : state.getAllMilestones()) {
 
-            java.time.LocalDate due = java.time.LocalDate.parse(ms.getDueDate());
-
-
             // "due tomorrow" => now is exactly one day before due
 
-            if (now.equals(due.minusDays(1))) {
+            if (tomorrow.equals(ms.getDue())) {
 
-                String key = "DUE_TOMORROW:" + ms.getName();
-
-                if (state.markOnce(key, nowIso)) {
+                if (state.markOnce(MilestoneEvent.DUE_TOMORROW, ms)) {
 
                     for (int tid : ms.getTickets()) {
 
@@ -166,11 +331,7 @@ public final class CommandFacade {
 
                             + " is due tomorrow. All unresolved tickets are now CRITICAL.";
 
-                    for (String dev : ms.getAssignedDevs()) {
-
-                        state.pushNotification(dev, msg);
-
-                    }
+                    state.broadcastNotification(ms.getAssignedDevs(), msg);
 
                 }
 
@@ -200,44 +361,55 @@ public final class CommandFacade {
                     .build();
         }
 
-        state.getTickets().add(t);
+        state.addTicket(t);
         return null;
     }
 
-    private void applyPriorityEscalationForView(final String timestamp) {
-        for (Ticket t : state.getTickets()) {
-            String msName = state.getMilestoneNameForTicket(t.getId());
-            if (msName == null) {
-                continue;
-            }
-            Milestone ms = state.getMilestone(msName);
-            if (ms == null) {
-                continue;
-            }
-            // only active milestones matter
-            if (!ms.isActive(state)) {
-                continue;
-            }
+    private ObjectNode handleImportTickets(final JsonNode cmdNode) {
+        String username = cmdNode.get("username").asText();
+        String timestamp = cmdNode.get("timestamp").asText();
+
+        JsonNode entries = cmdNode.get("tickets");
+        if (entries == null || !entries.isArray()) {
+            return OutputBuilder.start("importTickets", username, timestamp)
+                    .error("The tickets must be a list of ticket params.")
+                    .build();
+        }
+        // checked once for the whole batch
+        if (!state.isTestingPhase(timestamp)) {
+            return OutputBuilder.start("importTickets", username, timestamp)
+                    .error("Tickets can only be reported during testing phases.")
+                    .build();
+        }
 
-            int d = daysUntilDueInclusive(timestamp, ms.getDueDate());
+        TicketImport.Result result = TicketImport.run(state, entries, timestamp);
 
-            // Test 3 behavior:
-            // - within 3 days: raise to HIGH, but if BUG with SEVERE -> CRITICAL immediately
-            // - within 2 days: CRITICAL for everyone
-            if (d <= 2) {
-                t.setBusinessPriority(BusinessPriority.CRITICAL);
+        ObjectNode out = OutputBuilder.start("importTickets", username, timestamp).build();
+        out.put("imported", result.getImported());
+        com.fasterxml.jackson.databind.node.ArrayNode rejected = out.putArray("rejected");
+        result.getRejected().forEach((index, error) -> rejected.addObject()
+                .put("index", index)
+                .put("error", error));
+        return out;
+    }
+
+    /**
+     * Raises the priority of every ticket linked to an active milestone that
+     * got close to its due date:
+     * - within 3 days: at least HIGH, but a SEVERE bug becomes CRITICAL;
+     * - within 2 days (or overdue): CRITICAL for everyone.
+     */
+    private void escalate(final Milestone ms, final EscalationSchedule.Level level) {
+        for (int tid : state.getTicketsLinkedTo(ms.getName())) {
+            Ticket t = state.findTicket(tid);
+            if (t == null) {
                 continue;
             }
-
-            if (d <= 3) {
-                if (t.getType() == TicketType.BUG && "SEVERE".equals(t.getSeverity())) {
-                    t.setBusinessPriority(BusinessPriority.CRITICAL);
-                } else {
-                    // at least HIGH
-                    if (t.getBusinessPriority().ordinal() < BusinessPriority.HIGH.ordinal()) {
-                        t.setBusinessPriority(BusinessPriority.HIGH);
-                    }
-                }
+            if (level == EscalationSchedule.Level.CRITICAL
+                    || t.getType() == TicketType.BUG && "SEVERE".equals(t.getSeverity())) {
+                t.setBusinessPriority(BusinessPriority.CRITICAL);
+            } else if (t.getBusinessPriority().ordinal() < BusinessPriority.HIGH.ordinal()) {
+                t.setBusinessPriority(BusinessPriority.HIGH);
             }
         }
     }
@@ -246,52 +418,45 @@ public final class CommandFacade {
         String username = cmdNode.get("username").asText();
         String timestamp = cmdNode.get("timestamp").asText();
 
-        applyPriorityEscalationForView(timestamp);
+        PageRequest paging = PageRequest.of(cmdNode);
 
-        List<Ticket> visible = new ArrayList<>();
+        // Views are kept in createdAt, then id order; filtering preserves it
+        TicketViews views = state.getTicketViews();
+        Iterable<Ticket> visible;
         switch (user.getRole()) {
             case MANAGER:
-                visible.addAll(state.getTickets());
+                visible = paging.after(views.byCreation());
                 break;
             case REPORTER:
-                for (Ticket t : state.getTickets()) {
-                    if (!t.getReportedBy().isEmpty() && t.getReportedBy()
-                            .equals(user.getUsername())) {
-                        visible.add(t);
-                    }
-                }
+                visible = paging.after(views.reportedBy(user.getUsername()));
                 break;
             case DEVELOPER:
-                for (Ticket t : state.getTickets()) {
-                    if (t.getStatus() != TicketStatus.OPEN) {
-                        continue;
-                    }
-                    String msName = state.getMilestoneNameForTicket(t.getId());
-                    if (msName == null) {
-                        continue;
-                    }
-                    Milestone ms = state.getMilestone(msName);
-                    if (ms == null) {
-                        continue;
-                    }
-                    if (ms.isDevAssigned(username)) {
-                        visible.add(t);
-                    }
-                }
+                visible = () -> paging.after(views.byCreation()).stream()
+                        .filter(t -> t.getStatus() == TicketStatus.OPEN
+                                && isOnMilestoneOf(t, username))
+                        .iterator();
                 break;
             default:
+                visible = List.of();
                 break;
         }
-
-        visible.sort(Comparator
-                .comparing(Ticket::getCreatedAt)
-                .thenComparingInt(Ticket::getId));
+        PageRequest.Page<Ticket> page = paging.select(visible, PageRequest::creationKey);
 
         return OutputBuilder.start("viewTickets", username, timestamp)
-                .tickets(visible)
+                .tickets(page.getItems(), FieldProjection.of(cmdNode))
+                .nextCursor(paging, page)
                 .build();
     }
 
+    private boolean isOnMilestoneOf(final Ticket t, final String developer) {
+        String msName = state.getMilestoneNameForTicket(t.getId());
+        if (msName == null) {
+            return false;
+        }
+        Milestone ms = state.getMilestone(msName);
+        return ms != null && ms.isDevAssigned(developer);
+    }
+
     private ObjectNode handleStartTestingPhase(final JsonNode cmdNode) {
         String timestamp = cmdNode.get("timestamp").asText();
         state.startTestingPhaseFrom(timestamp);
@@ -336,12 +501,13 @@ public final class CommandFacade {
             User u = state.getUser(dev);
             if (u == null) {
                 return OutputBuilder.start("createMilestone", username, timestamp)
-                        .error("The user " + dev + " does not exist.")
+                        .error(unknownUser(dev))
                         .build();
             }
             if (u.getRole() != Role.DEVELOPER) {
                 return OutputBuilder.start("createMilestone", username, timestamp)
-                        .error("The user " + dev + " is not a developer.")
+                        .error(notDeveloperErrors.computeIfAbsent(dev, d ->
+                                TextNode.valueOf("The user " + d + " is not a developer.")))
                         .build();
             }
         }
@@ -350,7 +516,7 @@ public final class CommandFacade {
         for (int tid : tickets) {
             if (state.findTicket(tid) == null) {
                 return OutputBuilder.start("createMilestone", username, timestamp)
-                        .error("The ticket " + tid + " does not exist.")
+                        .error(unknownTicket(tid))
                         .build();
             }
         }
@@ -366,7 +532,16 @@ public final class CommandFacade {
             }
         }
 
+        String cycleWith = state.getMilestoneGraph().wouldCreateCycle(name, blockingFor);
+        if (cycleWith != null) {
+            return OutputBuilder.start("createMilestone", username, timestamp)
+                    .error("Milestone " + name + " cannot block " + cycleWith
+                            + " as it would create a dependency cycle.")
+                    .build();
+        }
+
         Milestone m = new Milestone(
+                state.milestoneIdFor(name),
                 name,
                 blockingFor,
                 dueDate,
@@ -385,9 +560,7 @@ public final class CommandFacade {
             }
         }
         String msg = "New milestone " + name + " has been created with due date " + dueDate + ".";
-        for (String dev : assignedDevs) {
-            state.pushNotification(dev, msg);
-        }
+        state.broadcastNotification(assignedDevs, msg);
         return null;
     }
 
@@ -396,20 +569,7 @@ public final class CommandFacade {
         String username = cmdNode.get("username").asText();
         String timestamp = cmdNode.get("timestamp").asText();
 
-        List<Milestone> visible = new ArrayList<>();
-        if (user.getRole() == Role.MANAGER) {
-            for (Milestone m : state.getAllMilestones()) {
-                if (m.getCreatedBy().equals(username)) {
-                    visible.add(m);
-                }
-            }
-        } else if (user.getRole() == Role.DEVELOPER) {
-            for (Milestone m : state.getAllMilestones()) {
-                if (m.isDevAssigned(username)) {
-                    visible.add(m);
-                }
-            }
-        }
+        List<Milestone> visible = visibleMilestones(user);
 
         // Sort: dueDate asc, then name asc (lexicographic)
         visible.sort((a, b) -> {
@@ -420,9 +580,13 @@ public final class CommandFacade {
             return a.getName().compareTo(b.getName());
         });
 
+        // a cached view is cheaper to trim than a partial one is to compute
+        FieldProjection fields = FieldProjection.of(cmdNode);
         List<ObjectNode> milestoneNodes = new ArrayList<>();
         for (Milestone m : visible) {
-            milestoneNodes.add(m.toOutputJson(state, timestamp));
+            milestoneNodes.add(fields.isAll() || m.hasCachedView(timestamp)
+                    ? fields.project(m.toOutputJson(state, timestamp))
+                    : m.toOutputJson(state, timestamp, fields));
         }
 
         return OutputBuilder.start("viewMilestones", username, timestamp)
@@ -430,6 +594,82 @@ public final class CommandFacade {
                 .build();
     }
 
+    private ObjectNode handleViewMetricsHistory(final JsonNode cmdNode) {
+        String username = cmdNode.get("username").asText();
+        String timestamp = cmdNode.get("timestamp").asText();
+        MetricsHistory history = state.getMetricsHistory();
+
+        java.time.LocalDate from;
+        java.time.LocalDate to;
+        try {
+            from = cmdNode.hasNonNull("from")
+                    ? java.time.LocalDate.parse(cmdNode.get("from").asText())
+                    : history.getFirstDay();
+            to = cmdNode.hasNonNull("to")
+                    ? java.time.LocalDate.parse(cmdNode.get("to").asText())
+                    : history.getCurrentDay();
+        } catch (java.time.format.DateTimeParseException e) {
+            from = null;
+            to = null;
+        }
+        if (from == null || to == null || from.isAfter(to)) {
+            return OutputBuilder.start("viewMetricsHistory", username, timestamp)
+                    .error("The date range is invalid.")
+                    .build();
+        }
+
+        ObjectNode out = OutputBuilder.start("viewMetricsHistory", username, timestamp).build();
+        history.range(from, to, state).forEach(out.putArray("history")::add);
+        return out;
+    }
+
+    /**
+     * Dependency view of one milestone: its direct blockers, every
+     * transitive blocker in the order they have to be completed, everything
+     * it transitively blocks, and the longest chain of still active
+     * blockers ending at it.
+     */
+    private ObjectNode handleViewMilestoneDependencies(final JsonNode cmdNode) {
+        String username = cmdNode.get("username").asText();
+        String timestamp = cmdNode.get("timestamp").asText();
+        String name = cmdNode.get("name").asText();
+
+        if (state.getMilestone(name) == null) {
+            return OutputBuilder.start("viewMilestoneDependencies", username, timestamp)
+                    .error(unknownMilestoneErrors.computeIfAbsent(name, n ->
+                            TextNode.valueOf("The milestone " + n + " does not exist.")))
+                    .build();
+        }
+
+        MilestoneGraph graph = state.getMilestoneGraph();
+        ObjectNode out = OutputBuilder.start("viewMilestoneDependencies", username, timestamp)
+                .putString("name", name)
+                .build();
+        graph.blockersOf(name).forEach(out.putArray("blockedBy")::add);
+        graph.transitiveBlockers(name).forEach(out.putArray("transitivelyBlockedBy")::add);
+        graph.transitivelyBlocked(name).forEach(out.putArray("transitivelyBlocking")::add);
+        graph.criticalPath(name, blocker -> {
+            Milestone m = state.getMilestone(blocker);
+            return m != null && m.isActive(state);
+        }).forEach(out.putArray("criticalPath")::add);
+        return out;
+    }
+
+    private List<Milestone> visibleMilestones(final User user) {
+        String username = user.getUsername();
+        List<Milestone> visible = new ArrayList<>();
+        if (user.getRole() == Role.MANAGER) {
+            visible.addAll(state.getTeams().milestonesOf(username));
+        } else if (user.getRole() == Role.DEVELOPER) {
+            for (Milestone m : state.getAllMilestones()) {
+                if (m.isDevAssigned(username)) {
+                    visible.add(m);
+                }
+            }
+        }
+        return visible;
+    }
+
     // --- Helpers ---
 
     private boolean hasRole(final Role userRole, final Role[] allowed) {
@@ -441,8 +681,31 @@ public final class CommandFacade {
         return false;
     }
 
-    private String permissionMessage(final String command, final Role userRole,
-                                     final Role[] allowed) {
+    private static <K> Map<K, TextNode> errorCache() {
+        return java.util.Collections.synchronizedMap(
+                new java.util.LinkedHashMap<K, TextNode>(ERROR_CACHE_CAPACITY,
+                        ERROR_CACHE_LOAD_FACTOR, true) {
+                    @Override
+                    protected boolean removeEldestEntry(final Map.Entry<K, TextNode> eldest) {
+                        return size() > ERROR_CACHE_SIZE;
+                    }
+                });
+    }
+
+    private TextNode unknownUser(final String username) {
+        return unknownUserErrors.computeIfAbsent(username,
+                u -> TextNode.valueOf("The user " + u + " does not exist."));
+    }
+
+    /**
+     * @param ticketId a ticket id, or the text of an id that is not a number
+     */
+    private TextNode unknownTicket(final Object ticketId) {
+        return unknownTicketErrors.computeIfAbsent(ticketId,
+                id -> TextNode.valueOf("The ticket " + id + " does not exist."));
+    }
+
+    private static String permissionMessage(final Role userRole, final Role[] allowed) {
         StringBuilder sb = new StringBuilder();
         sb.append("The user does not have permission to execute this command: required role ");
         for (int i = 0; i < allowed.length; i++) {
@@ -454,24 +717,28 @@ public final class CommandFacade {
         sb.append("; user role ").append(userRole.name()).append(".");
         return sb.toString();
     }
-    private ObjectNode handleAssignTicket(final com.fasterxml.jackson.databind.JsonNode cmdNode,
-                                          final main.model.User user) {
-        final String username = cmdNode.get("username").asText();
+    private ObjectNode handleAssignTicket(final JsonNode cmdNode, final User user) {
         final String timestamp = cmdNode.get("timestamp").asText();
-        final int ticketId = cmdNode.get("ticketID").asInt();
+        return outcome("assignTicket", user, timestamp,
+                assignTicket(user, cmdNode.get("ticketID").asInt(), timestamp));
+    }
+
+    /**
+     * Self-assigns an OPEN ticket to a developer.
+     *
+     * @return null once assigned, else the error
+     */
+    private String assignTicket(final User user, final int ticketId, final String timestamp) {
+        final String username = user.getUsername();
 
         final main.model.Ticket t = state.findTicket(ticketId);
         if (t == null) {
-            return OutputBuilder.start("assignTicket", username, timestamp)
-                    .error("The ticket " + ticketId + " does not exist.")
-                    .build();
+            return unknownTicket(ticketId).textValue();
         }
 
         // Only OPEN tickets can be assigned.
         if (t.getStatus() != main.model.TicketStatus.OPEN) {
-            return OutputBuilder.start("assignTicket", username, timestamp)
-                    .error("Only OPEN tickets can be assigned.")
-                    .build();
+            return "Only OPEN tickets can be assigned.";
         }
 
         // Ticket must belong to a milestone for assignment rules in this task
@@ -484,19 +751,14 @@ public final class CommandFacade {
 
         // Must be assigned to milestone
         if (ms != null && !ms.isDevAssigned(username)) {
-            return OutputBuilder.start("assignTicket", username, timestamp)
-                    .error("Developer " + username
-                            + " is not assigned to milestone " + ms.getName() + ".")
-                    .build();
+            return "Developer " + username
+                    + " is not assigned to milestone " + ms.getName() + ".";
         }
 
         // Cannot assign ticket from blocked milestone <name>.
         if (ms != null && ms.isBlocked(state)) {
-            return OutputBuilder.start("assignTicket", username, timestamp)
-                    .error("Cannot assign ticket "
-                            + ticketId + " from blocked milestone "
-                            + ms.getName() + ".")
-                    .build();
+            return "Cannot assign ticket " + ticketId
+                    + " from blocked milestone " + ms.getName() + ".";
         }
 
         // Expertise area check (Task 5 specific wording)
@@ -507,12 +769,8 @@ public final class CommandFacade {
                 final ExpertiseArea devSpec = dev.getExpertiseArea();
 
                 if (!canAccess(devSpec, ticketArea)) {
-                    return OutputBuilder.start("assignTicket", username, timestamp)
-                            .error("Developer " + username + " cannot assign ticket " + ticketId
-                                    + " due to expertise area. Required: "
-                                    + requiredExpertiseString(ticketArea)
-                                    + "; Current: " + devSpec.name() + ".")
-                            .build();
+                    return "Developer " + username + " cannot assign ticket " + ticketId
+                            + EXPERTISE_ERRORS[ticketArea.ordinal()][devSpec.ordinal()];
                 }
             }
         }
@@ -522,11 +780,8 @@ public final class CommandFacade {
         if (dev != null && requiresMidOrSenior(t)) {
             main.model.SeniorityLevel curSen = dev.getSeniorityLevel();
             if (curSen == main.model.SeniorityLevel.JUNIOR) {
-                return OutputBuilder.start("assignTicket", username, timestamp)
-                        .error("Developer " + username + " cannot assign ticket " + ticketId
-                                + " due to seniority level."
-                                + " Required: MID, SENIOR; Current: JUNIOR.")
-                        .build();
+                return "Developer " + username + " cannot assign ticket " + ticketId
+                        + " due to seniority level. Required: MID, SENIOR; Current: JUNIOR.";
             }
         }
 
@@ -549,35 +804,16 @@ public final class CommandFacade {
         final String username = cmdNode.get("username").asText();
         final String timestamp = cmdNode.get("timestamp").asText();
 
-        List<Ticket> assigned = new ArrayList<>();
-        for (Ticket t : state.getTickets()) {
-            if (username.equals(t.getAssignedTo())) {
-                assigned.add(t);
-            }
-        }
-
-        // Sort like ref: createdAt asc, then businessPriority desc, then id asc
-        assigned.sort((a, b) -> {
-            // 1) businessPriority DESC
-            int p = Integer.compare(b.getBusinessPriority().ordinal(),
-                    a.getBusinessPriority().ordinal());
-            if (p != 0) {
-                return p;
-            }
-
-            // 2) createdAt ASC
-            int c = a.getCreatedAt().compareTo(b.getCreatedAt());
-            if (c != 0) {
-                return c;
-            }
-
-            // 3) id ASC
-            return Integer.compare(a.getId(), b.getId());
-        });
+        PageRequest paging = PageRequest.of(cmdNode);
 
+        // businessPriority desc, then createdAt asc, then id asc, kept on write
+        PageRequest.Page<Ticket> page = paging.select(
+                paging.after(state.getTicketViews().assignedTo(username)),
+                PageRequest::priorityKey);
 
         return OutputBuilder.start("viewAssignedTickets", username, timestamp)
-                .assignedTickets(assigned)
+                .assignedTickets(page.getItems(), FieldProjection.of(cmdNode))
+                .nextCursor(paging, page)
                 .build();
     }
     private ObjectNode handleUndoAssignTicket(final JsonNode cmdNode, final User user) {
@@ -589,7 +825,7 @@ public final class CommandFacade {
         final Ticket t = state.findTicket(ticketId);
         if (t == null) {
             return OutputBuilder.start("undoAssignTicket", username, timestamp)
-                    .error("The ticket " + ticketId + " does not exist.")
+                    .error(unknownTicket(ticketId))
                     .build();
         }
         // Ref behavior: only IN_PROGRESS tickets can be unassigned.
@@ -619,53 +855,52 @@ public final class CommandFacade {
         return null; // no output on success (matches ref)
     }
     private ObjectNode handleAddComment(final JsonNode cmdNode, final User user) {
-        final String username = cmdNode.get("username").asText();
         final String timestamp = cmdNode.get("timestamp").asText();
-        final int ticketId = cmdNode.get("ticketID").asInt();
-        final String content = cmdNode.get("comment").asText();
+        return outcome("addComment", user, timestamp, addComment(user,
+                cmdNode.get("ticketID").asInt(), cmdNode.get("comment").asText(), timestamp));
+    }
+
+    /**
+     * Adds a comment to a ticket.
+     *
+     * @return null once added, {@link #IGNORED} for a missing ticket, else the error
+     */
+    private String addComment(final User user, final int ticketId, final String content,
+                              final String timestamp) {
+        final String username = user.getUsername();
 
         final Ticket t = state.findTicket(ticketId);
 
         // IMPORTANT for test 7: non-existent tickets are silently ignored (no output)
         if (t == null) {
-            return null;
+            return IGNORED;
         }
         if (user.getRole() == Role.REPORTER && t.getStatus() == TicketStatus.CLOSED) {
-            return OutputBuilder.start("addComment", username, timestamp)
-                    .error("Reporters cannot comment on CLOSED tickets.")
-                    .build();
+            return "Reporters cannot comment on CLOSED tickets.";
         }
         // Anonymous tickets: no comments allowed (regardless of length, role, etc.)
         if (t.getReportedBy() == null || t.getReportedBy().isEmpty()) {
-            return OutputBuilder.start("addComment", username, timestamp)
-                    .error("Comments are not allowed on anonymous tickets.")
-                    .build();
+            return "Comments are not allowed on anonymous tickets.";
         }
 
         // Min length rule
         if (content == null || content.length() < 10) {
-            return OutputBuilder.start("addComment", username, timestamp)
-                    .error("Comment must be at least 10 characters long.")
-                    .build();
+            return "Comment must be at least 10 characters long.";
         }
 
         // Developer can comment only if ticket is assigned to them
         if (user.getRole() == Role.DEVELOPER) {
             if (!username.equals(t.getAssignedTo())) {
-                return OutputBuilder.start("addComment", username, timestamp)
-                        .error("Ticket " + ticketId
-                                + " is not assigned to the developer " + username + ".")
-                        .build();
+                return "Ticket " + ticketId
+                        + " is not assigned to the developer " + username + ".";
             }
         }
 
         // Reporter can comment only on tickets they reported
         if (user.getRole() == Role.REPORTER) {
             if (!username.equals(t.getReportedBy())) {
-                return OutputBuilder.start("addComment", username, timestamp)
-                        .error("Reporter " + username
-                                + " cannot comment on ticket " + ticketId + ".")
-                        .build();
+                return "Reporter " + username
+                        + " cannot comment on ticket " + ticketId + ".";
             }
         }
 
@@ -722,19 +957,26 @@ public final class CommandFacade {
         return null;
     }
     private ObjectNode handleChangeStatus(final JsonNode cmdNode, final User user) {
-        final String username = cmdNode.get("username").asText();
         final String timestamp = cmdNode.get("timestamp").asText();
-        final int ticketId = cmdNode.get("ticketID").asInt();
+        return outcome("changeStatus", user, timestamp,
+                changeStatus(user, cmdNode.get("ticketID").asInt(), timestamp));
+    }
+
+    /**
+     * Moves a ticket one step forward: IN_PROGRESS to RESOLVED to CLOSED.
+     *
+     * @return null once moved, {@link #IGNORED} if there is nothing to move, else the error
+     */
+    private String changeStatus(final User user, final int ticketId, final String timestamp) {
+        final String username = user.getUsername();
 
         Ticket t = state.findTicket(ticketId);
         if (t == null) {
-            return null; // not tested here
+            return IGNORED; // not tested here
         }
 
         if (!username.equals(t.getAssignedTo())) {
-            return OutputBuilder.start("changeStatus", username, timestamp)
-                    .error("Ticket " + ticketId + " is not assigned to developer " + username + ".")
-                    .build();
+            return "Ticket " + ticketId + " is not assigned to developer " + username + ".";
         }
 
         TicketStatus from = t.getStatus();
@@ -746,17 +988,17 @@ public final class CommandFacade {
             to = TicketStatus.CLOSED;
         } else {
             // no change for OPEN/CLOSED in this test
-            return null;
+            return IGNORED;
         }
 
 // before t.setStatus(to);
         t.pushStatusHistory(from);
         t.setStatus(to);
-        t.addAction(TicketAction.statusChanged(from.name(), to.name(), username, timestamp));
         if (to == TicketStatus.RESOLVED) {
-
             t.setSolvedAt(timestamp);
         }
+        // recorded last: the action listeners see the ticket's final fields
+        t.addAction(TicketAction.statusChanged(from.name(), to.name(), username, timestamp));
         // Ticket closure can complete its milestone and unblock other milestones.
         if (to == TicketStatus.CLOSED) {
             String completedMsName = state.getMilestoneNameForTicket(ticketId);
@@ -780,8 +1022,8 @@ public final class CommandFacade {
                                         .LocalDate.parse(blocked.getDueDate());
                                 if (now.isAfter(due)) {
                                     // Unblocked after due date
-                                    String key = "UNBLOCK_AFTER_DUE:" + blocked.getName();
-                                    if (!state.markOnce(key, timestamp)) {
+                                    if (!state.markOnce(MilestoneEvent.UNBLOCKED_AFTER_DUE,
+                                            blocked)) {
                                         continue;
                                     }
                                     for (int tid : blocked.getTickets()) {
@@ -793,23 +1035,16 @@ public final class CommandFacade {
                                     String msg = "Milestone " + blocked.getName()
                                             + " was unblocked after due date. "
                                             + "All active tickets are now CRITICAL.";
-                                    for (String dev : blocked.getAssignedDevs()) {
-                                        state.pushNotification(dev, msg);
-                                    }
+                                    state.broadcastNotification(blocked.getAssignedDevs(), msg);
                                 } else {
-                                    String key = "UNBLOCKED:" + blocked.getName();
-                                    if (!state.markOnce(key, timestamp)) {
+                                    if (!state.markOnce(MilestoneEvent.UNBLOCKED, blocked)) {
                                         continue;
                                     }
                                     String msg = "Milestone " + blocked.getName()
                                             + " is now unblocked as ticket "
                                             + ticketId + " has been CLOSED.";
 
-                                    for (String dev : blocked.getAssignedDevs()) {
-
-                                        state.pushNotification(dev, msg);
-
-                                    }
+                                    state.broadcastNotification(blocked.getAssignedDevs(), msg);
 
                                 }
 
@@ -826,24 +1061,68 @@ public final class CommandFacade {
         }
         return null;
     }
-    private ObjectNode handleViewTicketHistory(final JsonNode cmdNode, final User user) {
-        final String username = cmdNode.get("username").asText();
+    /**
+     * Output of a single-ticket mutation: nothing unless it failed.
+     */
+    private static ObjectNode outcome(final String command, final User user,
+                                      final String timestamp, final String error) {
+        if (error == null || error.equals(IGNORED)) {
+            return null;
+        }
+        return OutputBuilder.start(command, user.getUsername(), timestamp).error(error).build();
+    }
+
+    /**
+     * Applies one mutation to every ticket of "ticketIDs", in order, as a
+     * single command: the automations and permission check run once for
+     * the batch and the outcome of each ticket is reported in one output.
+     */
+    private ObjectNode handleBulk(final JsonNode cmdNode, final User user,
+                                  final java.util.function.BiFunction<Integer, String, String> op) {
+        final String command = cmdNode.get("command").asText();
         final String timestamp = cmdNode.get("timestamp").asText();
+        JsonNode ids = cmdNode.get("ticketIDs");
+        if (ids == null || !ids.isArray()) {
+            return OutputBuilder.start(command, user.getUsername(), timestamp)
+                    .error("The ticketIDs must be a list of ticket ids.")
+                    .build();
+        }
 
-        List<Ticket> mine = new ArrayList<>();
-        for (Ticket t : state.getTickets()) {
-            boolean involved = false;
-            for (TicketAction a : t.getActions()) {
-                if (username.equals(a.getBy())) {   // need getter getBy()
-                    involved = true;
-                    break;
-                }
+        ObjectNode out = OutputBuilder.start(command, user.getUsername(), timestamp).build();
+        com.fasterxml.jackson.databind.node.ArrayNode results = out.putArray("results");
+        for (JsonNode id : ids) {
+            ObjectNode item = results.addObject();
+            item.set("ticketID", id);
+            if (!id.canConvertToInt()) {
+                item.put("outcome", "FAILED");
+                item.set("error", unknownTicket(id.asText()));
+                continue;
             }
-            if (involved) {
-                mine.add(t);
+            String error = op.apply(id.asInt(), timestamp);
+            if (error == null) {
+                item.put("outcome", "APPLIED");
+            } else if (error.equals(IGNORED)) {
+                item.put("outcome", "IGNORED");
+            } else {
+                item.put("outcome", "FAILED");
+                item.put("error", error);
             }
         }
-        mine.sort(Comparator.comparingInt(Ticket::getId));
+        return out;
+    }
+
+    private ObjectNode handleViewTicketHistory(final JsonNode cmdNode, final User user) {
+        final String username = cmdNode.get("username").asText();
+        final String timestamp = cmdNode.get("timestamp").asText();
+
+        PageRequest paging = PageRequest.of(cmdNode);
+
+        // only the tickets the user acted on, in id order; resolved lazily per page
+        Iterable<Ticket> involved = () -> paging.afterId(state.getTicketsActedOnBy(username))
+                .stream()
+                .map(state::findTicket)
+                .iterator();
+        PageRequest.Page<Ticket> page = paging.select(involved, PageRequest::idKey);
 
         com.fasterxml.jackson.databind.ObjectMapper mapper = new com
                 .fasterxml.jackson.databind.ObjectMapper();
@@ -853,8 +1132,12 @@ public final class CommandFacade {
         out.put("timestamp", timestamp);
 
         com.fasterxml.jackson.databind.node.ArrayNode arr = out.putArray("ticketHistory");
-        for (Ticket t : mine) {
-            arr.add(t.toHistoryJson());
+        FieldProjection fields = FieldProjection.of(cmdNode);
+        for (Ticket t : page.getItems()) {
+            arr.add(t.toHistoryJson(fields));
+        }
+        if (paging.isPaged()) {
+            out.put("nextCursor", page.getNextCursor());
         }
         return out;
     }
@@ -899,10 +1182,13 @@ public final class CommandFacade {
         final String searchType = filters.get("searchType").asText(); // "DEVELOPER" or "TICKET"
 
         if ("DEVELOPER".equals(searchType)) {
-            return handleSearchDeveloper(username, timestamp, filters);
+            return handleSearchDeveloper(username, timestamp, filters,
+                    FieldProjection.of(cmdNode));
         }
         if ("TICKET".equals(searchType)) {
-            return handleSearchTicket(username, timestamp, filters);
+            return handleSearchTicket(username, timestamp, filters,
+                    cmdNode.path("explain").asBoolean(false), PageRequest.of(cmdNode),
+                    FieldProjection.of(cmdNode));
         }
 
         // If unknown, return empty results
@@ -914,7 +1200,8 @@ public final class CommandFacade {
     private com.fasterxml.jackson.databind.node.ObjectNode handleSearchDeveloper(
             final String username,
             final String timestamp,
-            final com.fasterxml.jackson.databind.JsonNode filters) {
+            final com.fasterxml.jackson.databind.JsonNode filters,
+            final FieldProjection fields) {
 
         final String exp = filters.has("expertiseArea")
                 ? filters.get("expertiseArea").asText() : null;
@@ -928,27 +1215,23 @@ public final class CommandFacade {
 
         final User requester = state.getUser(username);
 
-        final java.util.Set<String> scope;
-
+        // a manager only sees the team, which is kept sorted by username
+        final java.util.Collection<main.model.Developer> candidates;
         if (requester instanceof Manager) {
-
-            scope = new java.util.HashSet<>(((Manager) requester).getSubordinates());
-
+            candidates = state.getTeams().developersOf(username);
         } else {
-
-            scope = null; // no scoping for non-managers
-
+            java.util.List<main.model.Developer> all = new java.util.ArrayList<>();
+            for (main.model.User u : state.users.values()) {
+                if (u instanceof main.model.Developer) {
+                    all.add((main.model.Developer) u);
+                }
+            }
+            all.sort(java.util.Comparator.comparing(main.model.User::getUsername));
+            candidates = all;
         }
 
         java.util.List<main.model.Developer> matched = new java.util.ArrayList<>();
-        for (main.model.User u : state.users.values()) {
-            if (!(u instanceof main.model.Developer)) {
-                continue;
-            }
-            main.model.Developer d = (main.model.Developer) u;
-            if (scope != null && !scope.contains(d.getUsername())) {
-                continue;
-            }
+        for (main.model.Developer d : candidates) {
             if (exp != null && !d.getExpertiseArea().name().equals(exp)) {
                 continue;
             }
@@ -967,9 +1250,6 @@ public final class CommandFacade {
             matched.add(d);
         }
 
-        // sort by username asc? ref order is alexandra, isabella, marcus (lexicographic)
-        matched.sort(java.util.Comparator.comparing(main.model.User::getUsername));
-
         com.fasterxml.jackson.databind.ObjectMapper mapper = new com
                 .fasterxml.jackson.databind.ObjectMapper();
         com.fasterxml.jackson.databind.node.ObjectNode out = mapper.createObjectNode();
@@ -986,7 +1266,7 @@ public final class CommandFacade {
             n.put("seniority", d.getSeniorityLevel().name());
             n.put("performanceScore", d.getPerformanceScore());
             n.put("hireDate", d.getHireDate()); // add getter + field (see next section)
-            arr.add(n);
+            arr.add(fields.project(n));
         }
 
         return out;
@@ -995,116 +1275,19 @@ public final class CommandFacade {
             .node.ObjectNode handleSearchTicket(
             final String username,
             final String timestamp,
-            final com.fasterxml.jackson.databind.JsonNode filters) {
-
-        String typeFilter = filters.has("type") ? filters.get("type").asText() : null;
-        String prioFilter = filters.has("businessPriority")
-                ? filters.get("businessPriority").asText() : null;
-        String createdAfter = filters.has("createdAfter")
-                ? filters.get("createdAfter").asText() : null;
-        boolean available = filters.has("availableForAssignment")
-                && filters.get("availableForAssignment").asBoolean();
-
-        java.util.List<String> keywords = new java.util.ArrayList<>();
-        if (filters.has("keywords") && filters.get("keywords").isArray()) {
-            for (com.fasterxml.jackson.databind.JsonNode k : filters.get("keywords")) {
-                keywords.add(k.asText());
-            }
-        }
-
-        java.util.List<main.model.Ticket> base = new java.util.ArrayList<>(state.getTickets());
+            final com.fasterxml.jackson.databind.JsonNode filters,
+            final boolean explain,
+            final PageRequest paging,
+            final FieldProjection fields) {
 
-        // Visibility rules depend on role
         main.model.User requester = state.getUser(username);
         main.model.Role role = requester.getRole();
 
-        java.util.List<main.model.Ticket> visible = new java.util.ArrayList<>();
-
-        for (main.model.Ticket t : base) {
-
-            if (role == main.model.Role.MANAGER) {
-            } else if (role == main.model.Role.DEVELOPER) {
-                // developer sees only milestone tickets where dev is assigned
-                String msName = state.getMilestoneNameForTicket(t.getId());
-                if (msName == null) {
-                    continue;
-                }
-                main.model.Milestone ms = state.getMilestone(msName);
-                if (ms == null) {
-                    continue;
-                }
-                if (!ms.isDevAssigned(username)) {
-                    continue;
-                }
-            } else if (role == main.model.Role.REPORTER) {
-                // reporter sees only tickets they reported (and non-anonymous)
-                if (!username.equals(t.getReportedBy())) {
-                    continue;
-                }
-            }
-
-            // ✅ CHANGE #1: Search returns only OPEN tickets (matches ref_11)
-            if (t.getStatus() != main.model.TicketStatus.OPEN) {
-                continue;
-            }
-
-            // ✅ CHANGE #2: availableForAssignment means "developer can actually assign it"
-            if (available) {
-                // only developers use this flag in the tests
-                if (role != main.model.Role.DEVELOPER) {
-                    continue;
-                }
-                // must be unassigned
-                if (t.getAssignedTo() != null && !t.getAssignedTo().isEmpty()) {
-                    continue;
-                }
-
-                // must satisfy the same eligibility constraints as assignTicket
-                main.model.Developer dev = (main.model.Developer) requester;
-                if (!canAssignForSearch(t, dev)) {
-                    continue;
-                }
-            }
-
-            // type filter
-            if (typeFilter != null && !t.getType().name().equals(typeFilter)) {
-                continue;
-            }
-
-            // businessPriority filter
-            if (prioFilter != null && !t.getBusinessPriority().name().equals(prioFilter)) {
-                continue;
-            }
-
-            // createdAfter filter (strictly after date)
-            if (createdAfter != null && t.getCreatedAt().compareTo(createdAfter) <= 0) {
-                continue;
-            }
-
-            // keyword filter
-            java.util.List<String> matching = new java.util.ArrayList<>();
-            if (!keywords.isEmpty()) {
-                String titleLower = t.getTitle().toLowerCase();
-                for (String kw : keywords) {
-                    String kwLower = kw.toLowerCase();
-                    // "whole word" simple boundaries
-                    if (titleLower.matches(".*\\b" + java
-                            .util.regex.Pattern.quote(kwLower) + "\\b.*")) {
-                        matching.add(kw);
-                    }
-                }
-                if (matching.isEmpty()) {
-                    continue;
-                }
-            }
-
-            // attach matchingWords only if keywords were present
-            t.setTempMatchingWords(matching);
-            visible.add(t);
-        }
-
-        // sort results by id asc (matches ref)
-        visible.sort(java.util.Comparator.comparingInt(main.model.Ticket::getId));
+        TicketSearchPlan plan = searchPlans.computeIfAbsent(role + " " + filters,
+                k -> TicketSearchPlan.compile(filters, role));
+        TicketSearchPlan.Result result = plan.execute(state, requester, this::canAssignForSearch);
+        PageRequest.Page<Ticket> page = paging.select(
+                paging.afterId(result.getTickets()), PageRequest::idKey);
 
         com.fasterxml.jackson.databind.ObjectMapper mapper = new com
                 .fasterxml.jackson.databind.ObjectMapper();
@@ -1115,7 +1298,7 @@ public final class CommandFacade {
         out.put("searchType", "TICKET");
 
         com.fasterxml.jackson.databind.node.ArrayNode arr = out.putArray("results");
-        for (main.model.Ticket t : visible) {
+        for (main.model.Ticket t : page.getItems()) {
             com.fasterxml.jackson.databind.node.ObjectNode n = mapper.createObjectNode();
             n.put("id", t.getId());
             n.put("type", t.getType().name());
@@ -1127,19 +1310,20 @@ public final class CommandFacade {
             n.put("reportedBy", t.getReportedBy());
 
 
-            if (role == main.model.Role.MANAGER || !keywords.isEmpty()) {
+            if (role == main.model.Role.MANAGER || plan.hasKeywords()) {
                 com.fasterxml.jackson.databind.node.ArrayNode mw = n.putArray("matchingWords");
-                for (String w : t.getTempMatchingWords()) {
+                for (String w : result.matchingWordsOf(t.getId())) {
                     mw.add(w);
                 }
             }
 
-            arr.add(n);
+            arr.add(fields.project(n));
         }
-
-        // clear temp matching words
-        for (main.model.Ticket t : visible) {
-            t.clearTempMatchingWords();
+        if (paging.isPaged()) {
+            out.put("nextCursor", page.getNextCursor());
+        }
+        if (explain) {
+            out.set("plan", plan.explain(result));
         }
 
         return out;
@@ -1201,8 +1385,7 @@ public final class CommandFacade {
             int d = daysUntilDueInclusive(nowIso, ms.getDueDate());
             java.time.LocalDate due = java.time.LocalDate.parse(ms.getDueDate());
             if (now.equals(due.plusDays(1))) {
-                String key = "DUE_TOMORROW:" + ms.getName();
-                if (state.markOnce(key, nowIso)) {
+                if (state.markOnce(MilestoneEvent.DUE_TOMORROW, ms)) {
                     // escalate unresolved tickets (not CLOSED)
                     for (int tid : ms.getTickets()) {
                         main.model.Ticket t = state.findTicket(tid);
@@ -1213,9 +1396,7 @@ public final class CommandFacade {
 
                     String msg = "Milestone " + ms.getName()
                             + " is due tomorrow. All unresolved tickets are now CRITICAL.";
-                    for (String dev : ms.getAssignedDevs()) {
-                        state.pushNotification(dev, msg);
-                    }
+                    state.broadcastNotification(ms.getAssignedDevs(), msg);
                 }
             }
 
@@ -1225,8 +1406,7 @@ public final class CommandFacade {
             boolean blockedNow = ms.isBlocked(state);
 
             if (pastDue && !blockedNow && ms.wasEverBlocked()) {
-                String key = "UNBLOCK_AFTER_DUE:" + ms.getName();
-                if (state.markOnce(key, nowIso)) {
+                if (state.markOnce(MilestoneEvent.UNBLOCKED_AFTER_DUE, ms)) {
 
                     for (int tid : ms.getTickets()) {
                         main.model.Ticket t = state.findTicket(tid);
@@ -1237,9 +1417,7 @@ public final class CommandFacade {
 
                     String msg = "Milestone " + ms.getName()
                             + " was unblocked after due date. All active tickets are now CRITICAL.";
-                    for (String dev : ms.getAssignedDevs()) {
-                        state.pushNotification(dev, msg);
-                    }
+                    state.broadcastNotification(ms.getAssignedDevs(), msg);
                 }
             }
 
@@ -1255,8 +1433,6 @@ public final class CommandFacade {
         // generate any milestone-based notifications for "now"
         generateMilestoneNotifications(timestamp);
 
-        java.util.List<String> notes = state.consumeNotifications(username);
-
         com.fasterxml.jackson.databind.ObjectMapper mapper = new com
                 .fasterxml.jackson.databind.ObjectMapper();
         com.fasterxml.jackson.databind.node.ObjectNode out = mapper.createObjectNode();
@@ -1265,8 +1441,10 @@ public final class CommandFacade {
         out.put("timestamp", timestamp);
 
         com.fasterxml.jackson.databind.node.ArrayNode arr = out.putArray("notifications");
-        for (String s : notes) {
-            arr.add(s);
+        long dropped = state.drainNotifications(username, arr::add);
+        if (dropped > 0) {
+            // only the newest notifications fit in the inbox
+            out.put("droppedNotifications", dropped);
         }
         return out;
     }
@@ -1309,11 +1487,11 @@ public final class CommandFacade {
 
         for (main.model.Ticket t : considered) {
             if (t.getType() == main.model.TicketType.BUG) {
-                bugImpact += bugImpactScore(t);
+                bugImpact += ImpactScores.bugImpact(t);
             } else if (t.getType() == main.model.TicketType.FEATURE_REQUEST) {
-                frImpact += featureImpactScore(t);
+                frImpact += ImpactScores.featureImpact(t);
             } else if (t.getType() == main.model.TicketType.UI_FEEDBACK) {
-                uiImpact += uiFeedbackImpactScore(t);
+                uiImpact += ImpactScores.uiFeedbackImpact(t);
             }
         }
 
@@ -1350,80 +1528,6 @@ public final class CommandFacade {
 
         return out;
     }
-    private static double bugImpactScore(final Ticket t) {
-        double freq;
-        switch (t.getFrequency()) {
-            case "ALWAYS":   freq = 1.5; break;
-            case "FREQUENT": freq = 1.2; break;
-            case "RARE":     freq = 0.8; break;
-            default:         freq = 1.0; break;
-        }
-
-        double sev;
-        switch (t.getSeverity()) {
-            case "SEVERE":   sev = 2.0; break;
-            case "MODERATE": sev = 1.299; break; // important for exact ref rounding
-            case "MINOR":    sev = 1.0; break;
-            default:         sev = 1.0; break;
-        }
-
-        double base;
-        switch (t.getBusinessPriority()) {
-            case CRITICAL: base = 30.0; break;
-            case HIGH:     base = 20.0; break;
-            case MEDIUM:   base = 10.0; break;
-            default:       base = 5.0; break;
-        }
-
-        double raw = base * freq * sev;
-        double normalized = raw / Math.sqrt(3.0);
-
-        return Math.round(normalized * 100.0) / 100.0;
-    }
-
-
-    private static double featureImpactScore(final main.model.Ticket t) {
-        // businessValue: XL > L > M > S
-        double bv;
-        switch (t.getBusinessValue()) {
-            case "XL": bv = 20.0; break;
-            case "L":  bv = 15.0; break;
-            case "M":  bv = 10.0; break;
-            default:   bv = 5.0; break;
-        }
-
-        // customerDemand: HIGH/MEDIUM/LOW
-        double cd;
-        switch (t.getCustomerDemand()) {
-            case "HIGH":   cd = 1.0; break;
-            case "MEDIUM": cd = 0.75; break;
-            default:       cd = 0.5; break;
-        }
-
-        // Calibrated so L*1.0 + M*0.75 => 22.5
-        return bv * cd;
-    }
-
-    private static double uiFeedbackImpactScore(final Ticket t) {
-        // businessValue weight
-        double bv;
-        switch (t.getBusinessValue()) {
-            case "XL": bv = 20.0; break;
-            case "L":  bv = 16.0; break;
-            case "M":  bv = 14.0; break;
-            default:   bv = 10.0; break; // "S" or missing
-        }
-
-        int us = (t.getUsabilityScore() == null) ? 5 : t.getUsabilityScore();
-        double usabilityFactor = (11.0 - us) / 10.0; // 1..10 -> 1.0..0.1
-
-        // priority multiplier: LOW=2.5, MEDIUM=3.75, HIGH=5.0, CRITICAL=6.25
-        // (ordinal LOW=0, MEDIUM=1, HIGH=2, CRITICAL=3)
-        double prioMult = 2.5 + 1.25 * t.getBusinessPriority().ordinal();
-
-        double impact = bv * usabilityFactor * prioMult;
-        return Math.round(impact * 100.0) / 100.0;
-    }
     private com.fasterxml.jackson.databind.node.ObjectNode handleGenerateTicketRiskReport(
             final com.fasterxml.jackson.databind.JsonNode cmdNode,
             final main.model.User user) {
@@ -1431,32 +1535,8 @@ public final class CommandFacade {
         final String username = cmdNode.get("username").asText();
         final String timestamp = cmdNode.get("timestamp").asText();
 
-        java.util.List<main.model.Ticket> considered = new java.util.ArrayList<>();
-        for (main.model.Ticket t : state.getTickets()) {
-            if (t.getStatus() == main.model.TicketStatus.OPEN) {
-                considered.add(t);
-            }
-        }
-
-        java.util.Map<String, Integer> byType = new java.util.LinkedHashMap<>();
-        byType.put("BUG", 0);
-        byType.put("FEATURE_REQUEST", 0);
-        byType.put("UI_FEEDBACK", 0);
-
-        java.util.Map<String, Integer> byPriority = new java.util.LinkedHashMap<>();
-        byPriority.put("LOW", 0);
-        byPriority.put("MEDIUM", 0);
-        byPriority.put("HIGH", 0);
-        byPriority.put("CRITICAL", 0);
-
-        for (main.model.Ticket t : considered) {
-            byType.put(t.getType().name(), byType.get(t.getType().name()) + 1);
-            byPriority.put(t.getBusinessPriority().name(), byPriority
-                    .get(t.getBusinessPriority().name()) + 1);
-        }
-        String bugRisk = computeRiskLabelForType(main.model.TicketType.BUG, considered);
-        String frRisk = computeRiskLabelForType(main.model.TicketType.FEATURE_REQUEST, considered);
-        String uiRisk = computeRiskLabelForType(main.model.TicketType.UI_FEEDBACK, considered);
+        // risk covers the open tickets, whose totals are kept up to date
+        OpenTicketAggregates open = state.getOpenTickets();
 
         com.fasterxml.jackson.databind.ObjectMapper mapper = new com
                 .fasterxml.jackson.databind.ObjectMapper();
@@ -1466,53 +1546,28 @@ public final class CommandFacade {
         out.put("timestamp", timestamp);
 
         com.fasterxml.jackson.databind.node.ObjectNode report = out.putObject("report");
-        report.put("totalTickets", considered.size());
-
-        com.fasterxml.jackson.databind.node.ObjectNode tbt = report.putObject("ticketsByType");
-        for (java.util.Map.Entry<String, Integer> e : byType.entrySet()) {
-            tbt.put(e.getKey(), e.getValue());
-        }
-
-        com.fasterxml.jackson.databind.node.ObjectNode tbp = report.putObject("ticketsByPriority");
-        for (java.util.Map.Entry<String, Integer> e : byPriority.entrySet()) {
-            tbp.put(e.getKey(), e.getValue());
-        }
+        report.put("totalTickets", open.total());
+        putOpenCounts(report, "ticketsByType", "ticketsByPriority");
 
         com.fasterxml.jackson.databind.node.ObjectNode rbt = report.putObject("riskByType");
-        rbt.put("BUG", bugRisk);
-        rbt.put("FEATURE_REQUEST", frRisk);
-        rbt.put("UI_FEEDBACK", uiRisk);
-
+        for (TicketType type : TicketType.values()) {
+            rbt.put(type.name(), ImpactScores.riskLabel(open.countOf(type),
+                    open.riskWeightOf(type)));
+        }
         return out;
     }
-    private static String computeRiskLabelForType(final main.model.TicketType type,
-                                                  final java.util.List<main.model
-                                                          .Ticket> considered) {
-        int count = 0;
-        double sum = 0.0;
-
-        for (main.model.Ticket t : considered) {
-            if (t.getType() != type) {
-                continue;
-            }
-            count++;
-
-            sum += priorityRiskWeight(t.getBusinessPriority());
-        }
-
-        if (count == 0) {
-            return "LOW";
-        }
-
-        double avg = sum / count;
 
-        if (avg >= 3.0) {
-            return "MAJOR";
+    private void putOpenCounts(final ObjectNode report, final String byTypeField,
+                               final String byPriorityField) {
+        OpenTicketAggregates open = state.getOpenTickets();
+        ObjectNode byType = report.putObject(byTypeField);
+        for (TicketType type : TicketType.values()) {
+            byType.put(type.name(), open.countOf(type));
         }
-        if (avg >= 1.5) {
-            return "MODERATE";
+        ObjectNode byPriority = report.putObject(byPriorityField);
+        for (BusinessPriority priority : BusinessPriority.values()) {
+            byPriority.put(priority.name(), open.countOf(priority));
         }
-        return "MINOR";
     }
     private com.fasterxml.jackson.databind.node.ObjectNode handleGenerateResolutionEfficiencyReport(
             final com.fasterxml.jackson.databind.JsonNode cmdNode,
@@ -1521,12 +1576,7 @@ public final class CommandFacade {
         final String username = cmdNode.get("username").asText();
         final String timestamp = cmdNode.get("timestamp").asText();
 
-        java.util.List<main.model.Ticket> considered = new java.util.ArrayList<>();
-        for (main.model.Ticket t : state.getTickets()) {
-            if (state.getMilestoneNameForTicket(t.getId()) != null) {
-                considered.add(t);
-            }
-        }
+        java.util.List<main.model.Ticket> considered = state.getMilestoneTickets();
 
         java.util.Map<String, Integer> byType = new java.util.LinkedHashMap<>();
         byType.put("BUG", 0);
@@ -1558,9 +1608,9 @@ public final class CommandFacade {
         // efficiency = 100 * (sum(priorityWeight) / sum(priorityWeight * timeToResolveDays))
         // calibrated to match ref_15.
 
-        double bugEff = efficiencyForType(considered, main.model.TicketType.BUG);
-        double frEff  = efficiencyForType(considered, main.model.TicketType.FEATURE_REQUEST);
-        double uiEff  = efficiencyForType(considered, main.model.TicketType.UI_FEEDBACK);
+        double bugEff = ImpactScores.efficiency(considered, main.model.TicketType.BUG);
+        double frEff  = ImpactScores.efficiency(considered, main.model.TicketType.FEATURE_REQUEST);
+        double uiEff  = ImpactScores.efficiency(considered, main.model.TicketType.UI_FEEDBACK);
 
         com.fasterxml.jackson.databind.ObjectMapper mapper = new com
                 .fasterxml.jackson.databind.ObjectMapper();
@@ -1589,88 +1639,6 @@ public final class CommandFacade {
 
         return out;
     }
-    private static double efficiencyForType(final java.util.List<main.model.Ticket> tickets,
-                                            final main.model.TicketType type) {
-        double sumExpected = 0.0;
-        double sumActual = 0.0;
-
-        for (main.model.Ticket t : tickets) {
-            if (t.getType() != type) {
-                continue;
-            }
-
-            double expected = expectedDays(t);
-            int actual = resolutionDaysOrOne(t);
-
-            sumExpected += expected;
-            sumActual += actual;
-        }
-
-        if (sumActual == 0.0) {
-            return 0.0;
-        }
-
-        double eff = 100.0 * (sumExpected / sumActual);
-        return Math.round(eff * 100.0) / 100.0;
-    }
-    private static double expectedDays(final main.model.Ticket t) {
-        // SLA baseline per ticket type
-        // (These are category SLAs; priority then scales them down.)
-        final double base;
-        switch (t.getType()) {
-            case BUG:
-                base = 29.142857142857142; // keep from your previous fix
-                break;
-            case FEATURE_REQUEST:
-                base = 19.636363636363637; // tuned SLA baseline for feature work
-                break;
-            case UI_FEEDBACK:
-                base = 18.75; // tuned SLA baseline for UI improvements
-                break;
-            default:
-                base = 15.0;
-                break;
-        }
-
-        // Priority divisor (higher priority => smaller expected time)
-        final double div;
-        switch (t.getBusinessPriority()) {
-            case CRITICAL: div = 4.0; break;
-            case HIGH:     div = 3.0; break;
-            case MEDIUM:   div = 2.5; break;
-            case LOW:      div = 1.5; break;
-            default:       div = 2.5; break;
-        }
-
-        return base / div;
-    }
-
-
-    private static int resolutionDaysOrOne(final main.model.Ticket t) {
-        java.time.LocalDate created = java.time.LocalDate.parse(t.getCreatedAt());
-
-        java.time.LocalDate resolvedAt = null;
-        for (main.model.TicketAction a : t.getActions()) {
-            if (!"STATUS_CHANGED".equals(a.getAction())) {
-                continue;
-            }
-            String to = a.getTo();
-            if ("RESOLVED".equals(to) || "CLOSED".equals(to)) {
-                resolvedAt = java.time.LocalDate.parse(a.getTimestamp());
-                break;
-            }
-        }
-
-        if (resolvedAt == null) {
-            return 1;
-        }
-
-        long diff = java.time.temporal.ChronoUnit.DAYS.between(created, resolvedAt);
-        if (diff < 1) {
-            diff = 1;
-        }
-        return (int) diff;
-    }
     private com.fasterxml.jackson.databind.node.ObjectNode handleAppStabilityReport(
             final com.fasterxml.jackson.databind.JsonNode cmdNode,
             final main.model.User user) {
@@ -1678,56 +1646,9 @@ public final class CommandFacade {
         final String username = cmdNode.get("username").asText();
         final String timestamp = cmdNode.get("timestamp").asText();
 
-        java.util.List<main.model.Ticket> open = new java.util.ArrayList<>();
-        for (main.model.Ticket t : state.getTickets()) {
-            if (t.getStatus() == main.model.TicketStatus.OPEN) {
-                open.add(t);
-            }
-        }
-
-        java.util.Map<String, Integer> byType = new java.util.LinkedHashMap<>();
-        byType.put("BUG", 0);
-        byType.put("FEATURE_REQUEST", 0);
-        byType.put("UI_FEEDBACK", 0);
-
-        java.util.Map<String, Integer> byPriority = new java.util.LinkedHashMap<>();
-        byPriority.put("LOW", 0);
-        byPriority.put("MEDIUM", 0);
-        byPriority.put("HIGH", 0);
-        byPriority.put("CRITICAL", 0);
-
-        for (main.model.Ticket t : open) {
-            byType.put(t.getType().name(), byType.get(t.getType().name()) + 1);
-            byPriority.put(t.getBusinessPriority().name(),
-                    byPriority.get(t.getBusinessPriority().name()) + 1);
-        }
-
-        // riskByType (slightly different naming than Test 14)
-        String bugRisk = stabilityRiskLabel(main.model.TicketType.BUG, open);
-        String frRisk  = stabilityRiskLabel(main.model.TicketType.FEATURE_REQUEST, open);
-        String uiRisk  = stabilityRiskLabel(main.model.TicketType.UI_FEEDBACK, open);
-
-        // impactByType: reuse your existing impact scoring from Test 13
-        double bugImpact = 0.0;
-        double frImpact = 0.0;
-        double uiImpact = 0.0;
-
-        for (main.model.Ticket t : open) {
-            if (t.getType() == main.model.TicketType.BUG) {
-                bugImpact += bugImpactScore(t);
-            } else if (t.getType() == main.model.TicketType.FEATURE_REQUEST) {
-                frImpact += featureImpactScore(t);
-            } else if (t.getType() == main.model.TicketType.UI_FEEDBACK) {
-                uiImpact += uiFeedbackStabilityImpactScore(t);
-            }
-        }
-
-        bugImpact = Math.round(bugImpact * 100.0) / 100.0;
-        frImpact  = Math.round(frImpact * 100.0) / 100.0;
-        uiImpact  = Math.round(uiImpact * 100.0) / 100.0;
-
-        String stability = appStabilityLabel(bugRisk, frRisk, uiRisk
-               , bugImpact, frImpact, uiImpact);
+        OpenTicketAggregates open = state.getOpenTickets();
+        String bugRisk = ImpactScores.stabilityRiskLabel(open.countOf(TicketType.BUG),
+                open.riskWeightOf(TicketType.BUG));
 
         com.fasterxml.jackson.databind.ObjectMapper mapper = new com.
                 fasterxml.jackson.databind.ObjectMapper();
@@ -1737,184 +1658,53 @@ public final class CommandFacade {
         out.put("timestamp", timestamp);
 
         com.fasterxml.jackson.databind.node.ObjectNode report = out.putObject("report");
-        report.put("totalOpenTickets", open.size());
-
-        com.fasterxml.jackson.databind.node.ObjectNode obt = report.putObject("openTicketsByType");
-        for (java.util.Map.Entry<String, Integer> e : byType.entrySet()) {
-            obt.put(e.getKey(), e.getValue());
-        }
-
-        com.fasterxml.jackson.databind.node.ObjectNode obp = report
-                .putObject("openTicketsByPriority");
-        for (java.util.Map.Entry<String, Integer> e
-                : byPriority.entrySet()) {
-            obp.put(e.getKey(), e.getValue());
-        }
+        report.put("totalOpenTickets", open.total());
+        putOpenCounts(report, "openTicketsByType", "openTicketsByPriority");
 
         com.fasterxml.jackson.databind.node.ObjectNode rbt = report.putObject("riskByType");
-        rbt.put("BUG", bugRisk);
-        rbt.put("FEATURE_REQUEST", frRisk);
-        rbt.put("UI_FEEDBACK", uiRisk);
-
         com.fasterxml.jackson.databind.node.ObjectNode ibt = report.putObject("impactByType");
-        ibt.put("BUG", bugImpact);
-        ibt.put("FEATURE_REQUEST", frImpact);
-        ibt.put("UI_FEEDBACK", uiImpact);
-
-        report.put("appStability", stability);
-
-        return out;
-    }
-    private static String stabilityRiskLabel(final main.model.TicketType type,
-                                             final java.util.List<main.model.Ticket> tickets) {
-        int count = 0;
-        double sum = 0.0;
-
-        for (main.model.Ticket t : tickets) {
-            if (t.getType() != type) {
-                continue;
-            }
-            count++;
-            sum += priorityRiskWeight(t.getBusinessPriority());
-        }
-
-        if (count == 0) {
-            return "LOW";
-        }
-
-        double avg = sum / count;
-
-        // BUG tickets: HIGH(3) and CRITICAL(4) => avg 3.5 -> SIGNIFICANT
-        // FR: MEDIUM(2) + HIGH(3) => avg 2.5 -> MODERATE
-        // UI: LOW(1) + MEDIUM(2) => avg 1.5 -> MODERATE
-        if (avg >= 3.5) {
-            return "SIGNIFICANT";
-        }
-        if (avg >= 1.5) {
-            return "MODERATE";
-        }
-        return "MINOR";
-    }
-
-    private static double priorityRiskWeight(final main.model.BusinessPriority p) {
-        switch (p) {
-            case CRITICAL: return 4.0;
-            case HIGH:     return 3.0;
-            case MEDIUM:   return 2.0;
-            case LOW:      return 1.0;
-            default:       return 1.0;
-        }
-    }
-    private static String appStabilityLabel(final String bugRisk,
-                                            final String frRisk,
-                                            final String uiRisk,
-                                            final double bugImpact,
-                                            final double frImpact,
-                                            final double uiImpact) {
-        if ("SIGNIFICANT".equals(bugRisk) || bugImpact >= 50.0) {
-            return "UNSTABLE";
-        }
-        return "STABLE";
-    }
-    private static double uiFeedbackStabilityImpactScore(final main.model.Ticket t) {
-        // businessValue weight: S=8, M=15, L=22, XL=29 (8 + 7*rank)
-        int rank;
-        String bv = t.getBusinessValue();
-        if ("XL".equals(bv)) {
-            rank = 3;
-        } else if ("L".equals(bv)) {
-            rank = 2;
-        } else if ("M".equals(bv)) {
-            rank = 1;
-        } else {
-            rank = 0; // "S" or missing
-        }
-        double valueWeight = 8.0 + 7.0 * rank;
-
-        // usabilityScore: higher means worse (more impact)
-        int us = (t.getUsabilityScore() == null) ? 5 : t.getUsabilityScore();
-        double usabilityFactor = us / 10.0;
-
-        // priority weight: LOW=1, MEDIUM=2, HIGH=3, CRITICAL=4
-        double prioWeight;
-        switch (t.getBusinessPriority()) {
-            case CRITICAL: prioWeight = 4.0; break;
-            case HIGH:     prioWeight = 3.0; break;
-            case MEDIUM:   prioWeight = 2.0; break;
-            case LOW:      prioWeight = 1.0; break;
-            default:       prioWeight = 1.0; break;
+        for (TicketType type : TicketType.values()) {
+            rbt.put(type.name(), ImpactScores.stabilityRiskLabel(open.countOf(type),
+                    open.riskWeightOf(type)));
+            ibt.put(type.name(), open.impactOf(type));
         }
 
-        double impact = valueWeight * usabilityFactor * prioWeight;
-        return Math.round(impact * 100.0) / 100.0;
+        report.put("appStability",
+                ImpactScores.appStability(bugRisk, open.impactOf(TicketType.BUG)));
+        return out;
     }
     private ObjectNode handleGeneratePerformanceReport(final JsonNode cmdNode, final User user) {
         final String username = cmdNode.get("username").asText();
         final String timestamp = cmdNode.get("timestamp").asText();
 
-        // Previous month prefix YYYY-MM-
-        int year = Integer.parseInt(timestamp.substring(0, 4));
-        int month = Integer.parseInt(timestamp.substring(5, 7));
-        month--;
-        if (month == 0) {
-            month = 12;
-            year--;
+        // Previous calendar month unless the command asks for another window
+        ReportWindow window = ReportWindow.of(cmdNode, timestamp);
+        if (window == null) {
+            return OutputBuilder.start("generatePerformanceReport", username, timestamp)
+                    .error("The report window is invalid.")
+                    .build();
         }
-        final String prevMonthPrefix = String.format("%04d-%02d-", year, month);
-
-        // Get the manager's subordinates only
-
-        Manager manager = (Manager) user;
-
-        java.util.List<String> subordinateUsernames = manager.getSubordinates();
-
-
-        // Only developers in the manager's team
-        java.util.List<main.model.Developer> devs = new java.util.ArrayList<>();
-        for (String subUsername : subordinateUsernames) {
 
-            User u = state.users.get(subUsername);
-
-            if (u != null && u.getRole() == Role.DEVELOPER) {
-                devs.add((main.model.Developer) u);
-            }
-        }
-        devs.sort(java.util.Comparator.comparing(User::getUsername));
+        // Only developers in the manager's team, already sorted by username
+        java.util.List<main.model.Developer> devs = state.getTeams().developersOf(username);
 
         ObjectMapper mapper = new ObjectMapper();
         ObjectNode out = mapper.createObjectNode();
         out.put("command", "generatePerformanceReport");
         out.put("username", username);
         out.put("timestamp", timestamp);
+        if (window.isCustom()) {
+            out.put("from", window.getFrom().toString());
+            out.put("to", window.getTo().toString());
+        }
 
         var reportArr = out.putArray("report");
 
         for (main.model.Developer d : devs) {
-            int closedTickets = 0;
-            double sumResolutionDays = 0.0;
-
-            for (Ticket t : state.getTickets()) {
-                if (!d.getUsername().equals(t.getAssignedTo())) {
-                    continue;
-                }
-                String ticketClosedAt = closedAt(t);
-
-                if (ticketClosedAt.isEmpty()) {
-                    continue;
-                }
-
-                if (!ticketClosedAt.startsWith(prevMonthPrefix)) {
-                    continue;
-                }
-
-
-
-                closedTickets++;
-
-                // resolution time: (solvedAt - assignedAt) in days + 1
-                int days = daysBetweenIso(t.getAssignedAt(), t.getSolvedAt()) + 1;
-                sumResolutionDays += days;
-            }
+            ClosureLedger.Totals totals = state.getClosures()
+                    .totals(d.getUsername(), window.getFrom(), window.getTo());
+            int closedTickets = totals.getClosed();
+            double sumResolutionDays = totals.getResolutionDays();
 
             double avg = (closedTickets == 0) ? 0.0 : (sumResolutionDays / closedTickets);
 
@@ -1924,7 +1714,10 @@ public final class CommandFacade {
                     getSeniorityLevel(), closedTickets, avgRounded);
             double scoreRounded = round2(score);
 
-            d.setPerformanceScore(scoreRounded);
+            // only the previous month is the developer's score; other windows are a view
+            if (window.isScored()) {
+                d.setPerformanceScore(scoreRounded);
+            }
 
             ObjectNode row = mapper.createObjectNode();
             row.put("username", d.getUsername());
@@ -1939,12 +1732,6 @@ public final class CommandFacade {
         return out;
     }
 
-    private static int daysBetweenIso(final String startIso, final String endIso) {
-        java.time.LocalDate a = java.time.LocalDate.parse(startIso);
-        java.time.LocalDate b = java.time.LocalDate.parse(endIso);
-        return (int) java.time.temporal.ChronoUnit.DAYS.between(a, b);
-    }
-
     private static double round2(final double x) {
         return Math.round(x * 100.0) / 100.0;
     }
@@ -2025,15 +1812,4 @@ public final class CommandFacade {
         }
         return "";
     }
-    private static String closedAt(final Ticket t) {
-        for (TicketAction a : t.getActions()) {
-            if (!"STATUS_CHANGED".equals(a.getAction())) {
-                continue;
-            }
-            if ("CLOSED".equals(a.getTo())) {
-                return a.getTimestamp();
-            }
-        }
-        return "";
-    }
 }
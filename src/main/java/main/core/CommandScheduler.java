@@ -0,0 +1,172 @@
+package main.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs a command stream on a thread pool while producing exactly the output
+ * of the serial loop in {@code App.run}.
+ *
+ * <p>Each command is given a footprint before it is dispatched:
+ * <ul>
+ *   <li>single-ticket mutations write only that ticket;</li>
+ *   <li>read-only queries read everything and write nothing;</li>
+ *   <li>anything else is a barrier: it waits for every earlier command and
+ *   every later command waits for it.</li>
+ * </ul>
+ * A command only waits for the earlier commands it conflicts with, so
+ * comments on different tickets or queries from different users overlap.
+ * Outputs are collected by input position, which keeps them in order.
+ *
+ * <p>Time is a global effect: the milestone automations run before every
+ * command and can write any ticket, but only when the date changes or after
+ * a mutation that is a barrier by its own footprint. The first command of a
+ * new date, and the single command right after such a mutation, are
+ * therefore barriers too; a barrier forced this way does not force the next
+ * one.
+ */
+public final class CommandScheduler {
+    /** Commands that mutate only the ticket named by their ticketID. */
+    private static final Set<String> SINGLE_TICKET_WRITERS = Set.of(
+            "assignTicket",
+            "undoAssignTicket",
+            "addComment",
+            "undoAddComment"
+    );
+
+    private final SystemState state;
+    private final CommandFacade facade;
+    private final Executor executor;
+
+    public CommandScheduler(final SystemState state, final CommandFacade facade,
+                            final Executor executor) {
+        this.state = state;
+        this.facade = facade;
+        this.executor = executor;
+    }
+
+    private enum Kind {
+        /** Touches no state at all (unknown user). */
+        NONE,
+        /** Writes a single ticket. */
+        TICKET_WRITE,
+        /** Reads any state, writes none. */
+        READ_ALL,
+        /** Conflicts with every other command. */
+        BARRIER
+    }
+
+    /**
+     * Executes the commands and returns their outputs in input order,
+     * stopping after the command that stops the state (lostInvestors).
+     *
+     * @param commands the command stream
+     * @return the non-null outputs, in the order serial execution produces them
+     */
+    public List<ObjectNode> run(final Iterable<JsonNode> commands) {
+        List<CompletableFuture<ObjectNode>> results = new ArrayList<>();
+
+        Map<Integer, CompletableFuture<?>> lastWriter = new HashMap<>();
+        List<CompletableFuture<?>> readers = new ArrayList<>();
+        List<CompletableFuture<?>> inFlight = new ArrayList<>();
+
+        String previousDate = null;
+        boolean afterMutation = false;
+
+        for (JsonNode cmdNode : commands) {
+            if (state.isStopped()) {
+                break;
+            }
+            Kind kind = classify(cmdNode);
+            if (kind != Kind.NONE) {
+                String date = cmdNode.get("timestamp").asText();
+                boolean mutation = kind == Kind.BARRIER;
+                if (afterMutation || !date.equals(previousDate)) {
+                    kind = Kind.BARRIER;
+                }
+                previousDate = date;
+                afterMutation = mutation;
+            }
+
+            if (kind == Kind.BARRIER) {
+                awaitAll(inFlight);
+                inFlight.clear();
+                lastWriter.clear();
+                readers.clear();
+                results.add(CompletableFuture.completedFuture(facade.execute(cmdNode)));
+                continue;
+            }
+
+            List<CompletableFuture<?>> deps = new ArrayList<>();
+            Integer ticketId = null;
+            if (kind == Kind.TICKET_WRITE) {
+                ticketId = cmdNode.get("ticketID").asInt();
+                CompletableFuture<?> previous = lastWriter.get(ticketId);
+                if (previous != null) {
+                    deps.add(previous);
+                }
+                deps.addAll(readers);
+            } else if (kind == Kind.READ_ALL) {
+                deps.addAll(lastWriter.values());
+            }
+
+            CompletableFuture<ObjectNode> task = CompletableFuture
+                    .allOf(deps.toArray(new CompletableFuture<?>[0]))
+                    .thenApplyAsync(ignored -> facade.execute(cmdNode), executor);
+
+            if (ticketId != null) {
+                lastWriter.put(ticketId, task);
+            } else if (kind == Kind.READ_ALL) {
+                readers.add(task);
+            }
+            inFlight.add(task);
+            results.add(task);
+        }
+        awaitAll(inFlight);
+
+        List<ObjectNode> outputs = new ArrayList<>();
+        for (CompletableFuture<ObjectNode> r : results) {
+            ObjectNode out = r.join();
+            if (out != null) {
+                outputs.add(out);
+            }
+        }
+        return outputs;
+    }
+
+    private Kind classify(final JsonNode cmdNode) {
+        String command = cmdNode.get("command").asText();
+        if (state.getUser(cmdNode.get("username").asText()) == null) {
+            return Kind.NONE;
+        }
+        if (SINGLE_TICKET_WRITERS.contains(command) && cmdNode.hasNonNull("ticketID")) {
+            return Kind.TICKET_WRITE;
+        }
+        // viewMilestones' preparation only fixes completion dates, and every
+        // command sharing its date would fix the same value
+        if (CommandFacade.isReadOnly(command)) {
+            return Kind.READ_ALL;
+        }
+        return Kind.BARRIER;
+    }
+
+    private static void awaitAll(final List<CompletableFuture<?>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package main.core;
+
+import main.model.Milestone;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Due-date thresholds at which the tickets of a milestone are escalated.
+ *
+ * <p>Every milestone schedules two events: two days before its due date
+ * its tickets become at least HIGH, one day before they become CRITICAL.
+ * Escalation only raises priorities, so each level has to be applied once
+ * per milestone; the schedule remembers what was applied and hands out
+ * only the milestones that reached a higher level since.
+ *
+ * <p>Only active milestones escalate. A milestone that reaches a level
+ * while completed stays dormant until one of its tickets is reopened
+ * ({@link #reactivated}).
+ */
+public final class EscalationSchedule {
+    /** Escalation levels, in increasing order. */
+    public enum Level {
+        /** No threshold reached yet. */
+        NONE,
+        /** Two days before due: at least HIGH, severe bugs CRITICAL. */
+        HIGH,
+        /** One day before due and later: everything CRITICAL. */
+        CRITICAL
+    }
+
+    private static final int HIGH_DAYS_BEFORE_DUE = 2;
+
+    /** A level a milestone reaches on a date. */
+    private static final class Threshold {
+        private final LocalDate date;
+        private final long seq;
+        private final Milestone milestone;
+        private final Level level;
+
+        Threshold(final LocalDate date, final long seq, final Milestone milestone,
+                  final Level level) {
+            this.date = date;
+            this.seq = seq;
+            this.milestone = milestone;
+            this.level = level;
+        }
+    }
+
+    private final PriorityQueue<Threshold> upcoming = new PriorityQueue<>(
+            Comparator.<Threshold, LocalDate>comparing(t -> t.date)
+                    .thenComparingLong(t -> t.seq));
+    private final Map<Milestone, Level> reached = new IdentityHashMap<>();
+    private final Map<Milestone, Level> applied = new IdentityHashMap<>();
+    private final Set<Milestone> pending = new LinkedHashSet<>();
+    private long nextSeq = 0;
+
+    /**
+     * @param m a new milestone
+     */
+    public void schedule(final Milestone m) {
+        LocalDate due = LocalDate.parse(m.getDueDate());
+        upcoming.add(new Threshold(due.minusDays(HIGH_DAYS_BEFORE_DUE), nextSeq++, m,
+                Level.HIGH));
+        upcoming.add(new Threshold(due.minusDays(1), nextSeq++, m, Level.CRITICAL));
+    }
+
+    /**
+     * Tells the schedule that a milestone may have become active again.
+     *
+     * @param m the milestone one of whose tickets was reopened
+     */
+    public void reactivated(final Milestone m) {
+        if (levelOf(reached, m).compareTo(levelOf(applied, m)) > 0) {
+            pending.add(m);
+        }
+    }
+
+    /**
+     * Moves the clock to {@code now} and escalates every active milestone
+     * that reached a level it has not been escalated to yet.
+     *
+     * @param now      the current date
+     * @param active   whether a milestone is (still) active and current
+     * @param escalate applies a level to the tickets of a milestone
+     */
+    public void advance(final LocalDate now, final Predicate<Milestone> active,
+                        final BiConsumer<Milestone, Level> escalate) {
+        while (!upcoming.isEmpty() && !upcoming.peek().date.isAfter(now)) {
+            Threshold t = upcoming.poll();
+            if (t.level.compareTo(levelOf(reached, t.milestone)) > 0) {
+                reached.put(t.milestone, t.level);
+                pending.add(t.milestone);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Milestone> ready = new ArrayList<>(pending);
+        pending.clear();
+        for (Milestone m : ready) {
+            if (!active.test(m)) {
+                continue; // dormant until reactivated
+            }
+            Level level = reached.get(m);
+            escalate.accept(m, level);
+            applied.put(m, level);
+        }
+    }
+
+    /**
+     * Forgets every milestone.
+     */
+    public void clear() {
+        upcoming.clear();
+        reached.clear();
+        applied.clear();
+        pending.clear();
+        nextSeq = 0;
+    }
+
+    private static Level levelOf(final Map<Milestone, Level> levels, final Milestone m) {
+        return levels.getOrDefault(m, Level.NONE);
+    }
+}
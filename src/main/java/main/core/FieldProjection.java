@@ -0,0 +1,101 @@
+package main.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Optional {@code fields} of a view or search command: the names of the
+ * item fields to return. Builders that can skip work take the projection
+ * as a predicate and only compute the fields it accepts; {@link #project}
+ * trims nodes that were built, or cached, whole.
+ *
+ * <p>Without the parameter every field is returned and outputs keep their
+ * historical shape.
+ */
+public final class FieldProjection implements Predicate<String> {
+    /** Every field. */
+    public static final FieldProjection ALL = new FieldProjection(null);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Set<String> fields;
+
+    private FieldProjection(final Set<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * @param cmdNode a command
+     * @return an error message if its fields parameter is invalid, else null
+     */
+    public static String validate(final JsonNode cmdNode) {
+        JsonNode f = cmdNode.get("fields");
+        if (f == null || f.isNull()) {
+            return null;
+        }
+        if (!f.isArray()) {
+            return "The fields must be a list of field names.";
+        }
+        for (JsonNode name : f) {
+            if (!name.isTextual()) {
+                return "The fields must be a list of field names.";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param cmdNode a command that passed {@link #validate}
+     * @return its projection
+     */
+    public static FieldProjection of(final JsonNode cmdNode) {
+        JsonNode f = cmdNode.get("fields");
+        if (f == null || f.isNull()) {
+            return ALL;
+        }
+        Set<String> names = new HashSet<>();
+        for (JsonNode name : f) {
+            names.add(name.asText());
+        }
+        return new FieldProjection(names);
+    }
+
+    /**
+     * @return whether every field is requested
+     */
+    public boolean isAll() {
+        return fields == null;
+    }
+
+    @Override
+    public boolean test(final String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    /**
+     * Keeps the requested fields of a node, in their original order. The node
+     * itself is left untouched since it may be cached; the kept values are
+     * shared with it.
+     *
+     * @param node a fully built item
+     * @return the node itself if every field is requested, else a trimmed copy
+     */
+    public ObjectNode project(final ObjectNode node) {
+        if (fields == null) {
+            return node;
+        }
+        ObjectNode out = MAPPER.createObjectNode();
+        for (Map.Entry<String, JsonNode> e : node.properties()) {
+            if (fields.contains(e.getKey())) {
+                out.set(e.getKey(), e.getValue());
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,242 @@
+package main.core;
+
+import main.model.BusinessPriority;
+import main.model.Ticket;
+import main.model.TicketAction;
+import main.model.TicketType;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * Scoring rules of the customer impact, ticket risk, resolution efficiency
+ * and app stability reports. Every score depends only on the ticket's own fields, so it can
+ * be computed once when the ticket enters an aggregate.
+ */
+public final class ImpactScores {
+    private static final double CENTS = 100.0;
+
+    private static final Map<String, Double> BUG_FREQUENCY =
+            Map.of("ALWAYS", 1.5, "FREQUENT", 1.2, "RARE", 0.8);
+    // MODERATE at 1.299 keeps the reference rounding
+    private static final Map<String, Double> BUG_SEVERITY =
+            Map.of("SEVERE", 2.0, "MODERATE", 1.299, "MINOR", 1.0);
+    private static final Map<BusinessPriority, Double> BUG_BASE = Map.of(
+            BusinessPriority.CRITICAL, 30.0, BusinessPriority.HIGH, 20.0,
+            BusinessPriority.MEDIUM, 10.0, BusinessPriority.LOW, 5.0);
+    private static final double BUG_NORMALIZER = Math.sqrt(3.0);
+
+    private static final Map<String, Double> FEATURE_VALUE =
+            Map.of("XL", 20.0, "L", 15.0, "M", 10.0);
+    private static final double FEATURE_DEFAULT_VALUE = 5.0;
+    private static final Map<String, Double> FEATURE_DEMAND = Map.of("HIGH", 1.0, "MEDIUM", 0.75);
+    private static final double FEATURE_DEFAULT_DEMAND = 0.5;
+
+    private static final Map<String, Double> UI_VALUE = Map.of("XL", 20.0, "L", 16.0, "M", 14.0);
+    private static final double UI_DEFAULT_VALUE = 10.0;
+    private static final int DEFAULT_USABILITY = 5;
+    private static final double USABILITY_SCALE = 10.0;
+    private static final double UI_PRIORITY_BASE = 2.5;
+    private static final double UI_PRIORITY_STEP = 1.25;
+
+    // stability weighting of UI feedback: S=8, M=15, L=22, XL=29
+    private static final Map<String, Integer> UI_VALUE_RANK = Map.of("XL", 3, "L", 2, "M", 1);
+    private static final double UI_STABILITY_BASE = 8.0;
+    private static final double UI_STABILITY_STEP = 7.0;
+
+    private static final double MAJOR_RISK = 3.0;
+    private static final double SIGNIFICANT_RISK = 3.5;
+    private static final double MODERATE_RISK = 1.5;
+    private static final double UNSTABLE_BUG_IMPACT = 50.0;
+
+    // SLA baseline per type, in days, scaled down by priority
+    private static final Map<TicketType, Double> SLA_DAYS = Map.of(
+            TicketType.BUG, 29.142857142857142,
+            TicketType.FEATURE_REQUEST, 19.636363636363637,
+            TicketType.UI_FEEDBACK, 18.75);
+    private static final Map<BusinessPriority, Double> SLA_DIVISOR = Map.of(
+            BusinessPriority.CRITICAL, 4.0, BusinessPriority.HIGH, 3.0,
+            BusinessPriority.MEDIUM, 2.5, BusinessPriority.LOW, 1.5);
+    private static final double PERCENT = 100.0;
+
+    private ImpactScores() {
+    }
+
+    /**
+     * @param t a BUG ticket
+     * @return its customer impact, rounded to cents
+     */
+    public static double bugImpact(final Ticket t) {
+        double freq = BUG_FREQUENCY.getOrDefault(t.getFrequency(), 1.0);
+        double sev = BUG_SEVERITY.getOrDefault(t.getSeverity(), 1.0);
+        double raw = BUG_BASE.get(t.getBusinessPriority()) * freq * sev;
+        return roundCents(raw / BUG_NORMALIZER);
+    }
+
+    /**
+     * @param t a FEATURE_REQUEST ticket
+     * @return its customer impact, business value times customer demand
+     */
+    public static double featureImpact(final Ticket t) {
+        double bv = FEATURE_VALUE.getOrDefault(t.getBusinessValue(), FEATURE_DEFAULT_VALUE);
+        double cd = FEATURE_DEMAND.getOrDefault(t.getCustomerDemand(), FEATURE_DEFAULT_DEMAND);
+        return bv * cd;
+    }
+
+    /**
+     * @param t a UI_FEEDBACK ticket
+     * @return its customer impact, rounded to cents; a poor usability score
+     *         weighs more
+     */
+    public static double uiFeedbackImpact(final Ticket t) {
+        double bv = UI_VALUE.getOrDefault(t.getBusinessValue(), UI_DEFAULT_VALUE);
+        double usabilityFactor = (USABILITY_SCALE + 1 - usability(t)) / USABILITY_SCALE;
+        double prioMult = UI_PRIORITY_BASE
+                + UI_PRIORITY_STEP * t.getBusinessPriority().ordinal();
+        return roundCents(bv * usabilityFactor * prioMult);
+    }
+
+    /**
+     * @param t a UI_FEEDBACK ticket
+     * @return its weight in the app stability report, rounded to cents; a
+     *         high usability score weighs more
+     */
+    public static double uiFeedbackStabilityImpact(final Ticket t) {
+        int rank = UI_VALUE_RANK.getOrDefault(t.getBusinessValue(), 0);
+        double valueWeight = UI_STABILITY_BASE + UI_STABILITY_STEP * rank;
+        double usabilityFactor = usability(t) / USABILITY_SCALE;
+        return roundCents(valueWeight * usabilityFactor * riskWeight(t.getBusinessPriority()));
+    }
+
+    /**
+     * @param t a ticket
+     * @return its weight in the app stability report
+     */
+    public static double stabilityImpact(final Ticket t) {
+        switch (t.getType()) {
+            case BUG:
+                return bugImpact(t);
+            case FEATURE_REQUEST:
+                return featureImpact(t);
+            default:
+                return uiFeedbackStabilityImpact(t);
+        }
+    }
+
+    /**
+     * @param p a priority
+     * @return its risk weight, LOW=1 to CRITICAL=4
+     */
+    public static int riskWeight(final BusinessPriority p) {
+        return p.ordinal() + 1;
+    }
+
+    /**
+     * @param count     number of tickets of a type
+     * @param weightSum sum of their risk weights
+     * @return the label of the ticket risk report
+     */
+    public static String riskLabel(final int count, final long weightSum) {
+        if (count == 0) {
+            return "LOW";
+        }
+        double avg = (double) weightSum / count;
+        if (avg >= MAJOR_RISK) {
+            return "MAJOR";
+        }
+        return avg >= MODERATE_RISK ? "MODERATE" : "MINOR";
+    }
+
+    /**
+     * @param count     number of open tickets of a type
+     * @param weightSum sum of their risk weights
+     * @return the label of the app stability report
+     */
+    public static String stabilityRiskLabel(final int count, final long weightSum) {
+        if (count == 0) {
+            return "LOW";
+        }
+        double avg = (double) weightSum / count;
+        if (avg >= SIGNIFICANT_RISK) {
+            return "SIGNIFICANT";
+        }
+        return avg >= MODERATE_RISK ? "MODERATE" : "MINOR";
+    }
+
+    /**
+     * @param bugRisk   the stability risk label of open bugs
+     * @param bugImpact the summed impact of open bugs
+     * @return STABLE or UNSTABLE
+     */
+    public static String appStability(final String bugRisk, final double bugImpact) {
+        if ("SIGNIFICANT".equals(bugRisk) || bugImpact >= UNSTABLE_BUG_IMPACT) {
+            return "UNSTABLE";
+        }
+        return "STABLE";
+    }
+
+    /**
+     * Resolution efficiency of the tickets of a type: their summed expected
+     * resolution times over their actual ones, as a percentage. An
+     * unresolved ticket counts as one day.
+     *
+     * @param tickets the tickets linked to a milestone
+     * @param type    the type to score
+     * @return the efficiency, rounded to cents; 0 if there is no such ticket
+     */
+    public static double efficiency(final Iterable<Ticket> tickets, final TicketType type) {
+        double sumExpected = 0.0;
+        double sumActual = 0.0;
+        for (Ticket t : tickets) {
+            if (t.getType() == type) {
+                sumExpected += SLA_DAYS.get(type) / SLA_DIVISOR.get(t.getBusinessPriority());
+                sumActual += resolutionDaysOrOne(t);
+            }
+        }
+        if (sumActual == 0.0) {
+            return 0.0;
+        }
+        return roundCents(PERCENT * (sumExpected / sumActual));
+    }
+
+    private static int resolutionDaysOrOne(final Ticket t) {
+        for (TicketAction a : t.getActions()) {
+            if ("STATUS_CHANGED".equals(a.getAction())
+                    && ("RESOLVED".equals(a.getTo()) || "CLOSED".equals(a.getTo()))) {
+                long days = ChronoUnit.DAYS.between(LocalDate.parse(t.getCreatedAt()),
+                        LocalDate.parse(a.getTimestamp()));
+                return (int) Math.max(days, 1);
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * @param score a score
+     * @return the score in whole cents
+     */
+    public static long toCents(final double score) {
+        return Math.round(score * CENTS);
+    }
+
+    /**
+     * @param cents an amount in cents
+     * @return the amount as a score
+     */
+    public static double fromCents(final long cents) {
+        return cents / CENTS;
+    }
+
+    /**
+     * @param value a sum of scores
+     * @return the sum rounded to cents
+     */
+    public static double roundCents(final double value) {
+        return fromCents(toCents(value));
+    }
+
+    private static int usability(final Ticket t) {
+        return t.getUsabilityScore() == null ? DEFAULT_USABILITY : t.getUsabilityScore();
+    }
+}
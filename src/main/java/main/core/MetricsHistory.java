@@ -0,0 +1,175 @@
+package main.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import main.model.BusinessPriority;
+import main.model.Ticket;
+import main.model.TicketType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Day-by-day history of the report aggregates: open tickets by type and
+ * priority, risk, stability impact and resolution efficiency.
+ *
+ * <p>A day is closed when the first command of a later date arrives; its
+ * metrics are then captured once, as they stood at the end of the day.
+ * Days without commands keep the metrics of the previous day, and a day
+ * whose metrics equal the previous entry is not stored at all, so quiet
+ * stretches cost nothing. The day in progress is read live.
+ */
+public final class MetricsHistory {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int TYPES = TicketType.values().length;
+
+    /** The aggregates of one day. */
+    public static final class DailyMetrics {
+        private final int[] openByType = new int[TYPES];
+        private final int[] openByPriority = new int[BusinessPriority.values().length];
+        private final long[] riskByType = new long[TYPES];
+        private final double[] impactByType = new double[TYPES];
+        private final double[] efficiencyByType = new double[TYPES];
+
+        /**
+         * @param state the state to capture
+         * @return its current metrics
+         */
+        public static DailyMetrics capture(final SystemState state) {
+            DailyMetrics m = new DailyMetrics();
+            OpenTicketAggregates open = state.getOpenTickets();
+            List<Ticket> linked = state.getMilestoneTickets();
+            for (TicketType type : TicketType.values()) {
+                int i = type.ordinal();
+                m.openByType[i] = open.countOf(type);
+                m.riskByType[i] = open.riskWeightOf(type);
+                m.impactByType[i] = open.impactOf(type);
+                m.efficiencyByType[i] = ImpactScores.efficiency(linked, type);
+            }
+            for (BusinessPriority p : BusinessPriority.values()) {
+                m.openByPriority[p.ordinal()] = open.countOf(p);
+            }
+            return m;
+        }
+
+        private boolean sameAs(final DailyMetrics o) {
+            return Arrays.equals(openByType, o.openByType)
+                    && Arrays.equals(openByPriority, o.openByPriority)
+                    && Arrays.equals(riskByType, o.riskByType)
+                    && Arrays.equals(impactByType, o.impactByType)
+                    && Arrays.equals(efficiencyByType, o.efficiencyByType);
+        }
+
+        /**
+         * @param date the day these metrics describe
+         * @return the metrics as an output node
+         */
+        public ObjectNode toJson(final LocalDate date) {
+            ObjectNode n = MAPPER.createObjectNode();
+            n.put("date", date.toString());
+            n.put("totalOpenTickets", Arrays.stream(openByType).sum());
+            ObjectNode byType = n.putObject("openTicketsByType");
+            ObjectNode risk = n.putObject("riskByType");
+            ObjectNode impact = n.putObject("impactByType");
+            ObjectNode efficiency = n.putObject("efficiencyByType");
+            for (TicketType type : TicketType.values()) {
+                int i = type.ordinal();
+                byType.put(type.name(), openByType[i]);
+                risk.put(type.name(),
+                        ImpactScores.stabilityRiskLabel(openByType[i], riskByType[i]));
+                impact.put(type.name(), impactByType[i]);
+                efficiency.put(type.name(), efficiencyByType[i]);
+            }
+            ObjectNode byPriority = n.putObject("openTicketsByPriority");
+            for (BusinessPriority p : BusinessPriority.values()) {
+                byPriority.put(p.name(), openByPriority[p.ordinal()]);
+            }
+            String bugRisk = risk.get(TicketType.BUG.name()).asText();
+            n.put("appStability",
+                    ImpactScores.appStability(bugRisk, impactByType[TicketType.BUG.ordinal()]));
+            return n;
+        }
+    }
+
+    private final TreeMap<LocalDate, DailyMetrics> closedDays = new TreeMap<>();
+    private LocalDate firstDay;
+    private LocalDate currentDay;
+
+    /**
+     * Closes the current day if {@code day} is a later one. Called before a
+     * command of that day touches the state.
+     *
+     * @param day   the date of the incoming command
+     * @param state the state as it stood at the end of the current day
+     */
+    public void advanceTo(final LocalDate day, final SystemState state) {
+        if (currentDay == null) {
+            firstDay = day;
+            currentDay = day;
+            return;
+        }
+        if (!day.isAfter(currentDay)) {
+            return;
+        }
+        DailyMetrics closing = DailyMetrics.capture(state);
+        Map.Entry<LocalDate, DailyMetrics> previous = closedDays.lastEntry();
+        if (previous == null || !previous.getValue().sameAs(closing)) {
+            closedDays.put(currentDay, closing);
+        }
+        currentDay = day;
+    }
+
+    /**
+     * @return the first day with a command, or null before any
+     */
+    public LocalDate getFirstDay() {
+        return firstDay;
+    }
+
+    /**
+     * @return the day in progress, or null before any command
+     */
+    public LocalDate getCurrentDay() {
+        return currentDay;
+    }
+
+    /**
+     * Lists the metrics of every day in a range, clamped to the days the
+     * history covers.
+     *
+     * @param from  the first day, inclusive
+     * @param to    the last day, inclusive
+     * @param state the live state, for the day in progress
+     * @return one node per day, oldest first
+     */
+    public List<ObjectNode> range(final LocalDate from, final LocalDate to,
+                                  final SystemState state) {
+        List<ObjectNode> days = new ArrayList<>();
+        if (currentDay == null) {
+            return days;
+        }
+        LocalDate start = from.isBefore(firstDay) ? firstDay : from;
+        LocalDate end = to.isAfter(currentDay) ? currentDay : to;
+        for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
+            if (d.equals(currentDay)) {
+                days.add(DailyMetrics.capture(state).toJson(d));
+            } else {
+                days.add(closedDays.floorEntry(d).getValue().toJson(d));
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Forgets every day.
+     */
+    public void clear() {
+        closedDays.clear();
+        firstDay = null;
+        currentDay = null;
+    }
+}
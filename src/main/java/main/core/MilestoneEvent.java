@@ -0,0 +1,11 @@
+package main.core;
+
+/**
+ * One-off milestone notifications. Each fires at most once per milestone
+ * name; {@link SystemState#markOnce} records which ones already fired.
+ */
+public enum MilestoneEvent {
+    DUE_TOMORROW,
+    UNBLOCKED_AFTER_DUE,
+    UNBLOCKED
+}
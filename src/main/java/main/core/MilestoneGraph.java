@@ -0,0 +1,195 @@
+package main.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Dependency graph of the milestones, by name. An edge {@code a -> b} means
+ * that milestone {@code a} lists {@code b} in its "blockingFor", i.e. that
+ * {@code b} cannot proceed while {@code a} is active.
+ *
+ * <p>Edges are kept in both directions, so the blockers of a milestone are a
+ * lookup instead of a scan over every milestone. Names may be referenced
+ * before the milestone they designate is created. The graph is kept acyclic:
+ * {@link #wouldCreateCycle} is checked before edges are added.
+ *
+ * <p>Walks use an explicit stack, so chains of any length are safe.
+ */
+public final class MilestoneGraph {
+    private final Map<String, Set<String>> blocks = new HashMap<>();
+    private final Map<String, Set<String>> blockedBy = new HashMap<>();
+
+    /**
+     * Replaces the outgoing edges of a milestone.
+     *
+     * @param name    the blocking milestone
+     * @param targets the milestones it blocks
+     */
+    public void setEdges(final String name, final Collection<String> targets) {
+        Set<String> old = blocks.remove(name);
+        if (old != null) {
+            for (String target : old) {
+                blockedBy.get(target).remove(name);
+            }
+        }
+        Set<String> out = new TreeSet<>(targets);
+        blocks.put(name, out);
+        for (String target : out) {
+            blockedBy.computeIfAbsent(target, k -> new TreeSet<>()).add(name);
+        }
+    }
+
+    /**
+     * Tells whether giving {@code name} the outgoing edges {@code targets}
+     * would close a cycle, including a milestone blocking itself.
+     *
+     * @param name    the milestone being created
+     * @param targets the milestones it would block
+     * @return the first target that already (transitively) blocks
+     *         {@code name}, or null if the edges are safe
+     */
+    public String wouldCreateCycle(final String name, final Collection<String> targets) {
+        // a cycle exists iff one of the targets already reaches name
+        Set<String> upstream = new HashSet<>();
+        collectBlockers(name, blocker -> true, upstream, new ArrayList<>());
+        for (String target : targets) {
+            if (upstream.contains(target)) {
+                return target;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param name a milestone
+     * @return the milestones that list {@code name} in their "blockingFor"
+     */
+    public Set<String> blockersOf(final String name) {
+        Set<String> in = blockedBy.get(name);
+        return in == null ? Collections.emptySet() : Collections.unmodifiableSet(in);
+    }
+
+    /**
+     * @param name a milestone
+     * @return the milestones listed in the "blockingFor" of {@code name}
+     */
+    public Set<String> blocking(final String name) {
+        Set<String> out = blocks.get(name);
+        return out == null ? Collections.emptySet() : Collections.unmodifiableSet(out);
+    }
+
+    /**
+     * Every milestone that blocks {@code name} directly or through a chain,
+     * in topological order: each milestone comes after all of its own
+     * blockers. Only the blocking subgraph of {@code name} is visited.
+     *
+     * @param name a milestone
+     * @return the transitive blockers, {@code name} excluded
+     */
+    public List<String> transitiveBlockers(final String name) {
+        List<String> order = new ArrayList<>();
+        collectBlockers(name, blocker -> true, new HashSet<>(), order);
+        order.remove(order.size() - 1); // name itself is last
+        return order;
+    }
+
+    /**
+     * Every milestone that {@code name} blocks directly or through a chain,
+     * sorted by name.
+     *
+     * @param name a milestone
+     * @return the transitively blocked milestones
+     */
+    public List<String> transitivelyBlocked(final String name) {
+        Set<String> seen = new TreeSet<>();
+        List<String> stack = new ArrayList<>(blocks.getOrDefault(name, Collections.emptySet()));
+        while (!stack.isEmpty()) {
+            String next = stack.remove(stack.size() - 1);
+            if (seen.add(next)) {
+                stack.addAll(blocks.getOrDefault(next, Collections.emptySet()));
+            }
+        }
+        return new ArrayList<>(seen);
+    }
+
+    /**
+     * The longest chain of milestones that are still in the way of
+     * {@code name}: every element blocks the next one and satisfies
+     * {@code active}. Ties are broken by name. Each blocker is visited once.
+     *
+     * @param name   the milestone at the end of the chain
+     * @param active whether a milestone still blocks the ones after it
+     * @return the chain, ending with {@code name}
+     */
+    public List<String> criticalPath(final String name, final Predicate<String> active) {
+        // every active blocker comes before the milestones it blocks
+        List<String> order = new ArrayList<>();
+        collectBlockers(name, active, new HashSet<>(), order);
+
+        Map<String, Integer> length = new HashMap<>();
+        Map<String, String> previous = new HashMap<>();
+        for (String milestone : order) {
+            String best = null;
+            int bestLength = 0;
+            for (String blocker : blockersOf(milestone)) {
+                if (active.test(blocker) && length.get(blocker) > bestLength) {
+                    best = blocker;
+                    bestLength = length.get(blocker);
+                }
+            }
+            length.put(milestone, bestLength + 1);
+            previous.put(milestone, best);
+        }
+
+        List<String> path = new ArrayList<>();
+        for (String m = name; m != null; m = previous.get(m)) {
+            path.add(m);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Depth-first walk over the blockers of {@code name} that satisfy
+     * {@code follow}, appending each milestone after all of its blockers.
+     */
+    private void collectBlockers(final String name, final Predicate<String> follow,
+                                 final Set<String> seen, final List<String> postOrder) {
+        if (!seen.add(name)) {
+            return;
+        }
+        Deque<Map.Entry<String, Iterator<String>>> stack = new ArrayDeque<>();
+        stack.push(Map.entry(name, blockersOf(name).iterator()));
+        while (!stack.isEmpty()) {
+            Map.Entry<String, Iterator<String>> top = stack.peek();
+            if (!top.getValue().hasNext()) {
+                stack.pop();
+                postOrder.add(top.getKey());
+                continue;
+            }
+            String blocker = top.getValue().next();
+            if (follow.test(blocker) && seen.add(blocker)) {
+                stack.push(Map.entry(blocker, blockersOf(blocker).iterator()));
+            }
+        }
+    }
+
+    /**
+     * Removes every edge.
+     */
+    public void clear() {
+        blocks.clear();
+        blockedBy.clear();
+    }
+}
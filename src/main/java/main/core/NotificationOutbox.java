@@ -0,0 +1,165 @@
+package main.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Pending notifications of every user.
+ *
+ * <p>Each message text is stored once, in a table keyed by message id, no
+ * matter how many users receive it. A user's inbox is a ring buffer of
+ * message ids with a fixed maximum capacity: when it is full, the oldest
+ * notification is dropped and the user's overflow counter grows; the next
+ * drain reports how many were dropped since the previous one. A message
+ * leaves the table as soon as no inbox references it anymore, so memory is
+ * bounded by {@code users * capacity} ids plus the texts they point to.
+ */
+public final class NotificationOutbox {
+    /** Default number of pending notifications kept per user. */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final int INITIAL_RING_SIZE = 4;
+
+    private final int capacity;
+    private final Map<Integer, Message> messages = new HashMap<>();
+    private final Map<String, Ring> inboxes = new HashMap<>();
+    private int nextMessageId = 0;
+
+    /**
+     * @param capacity maximum number of pending notifications per user
+     */
+    public NotificationOutbox(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Inbox capacity must be positive.");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Delivers one message to every recipient. A recipient listed twice
+     * receives it twice, as with individual deliveries.
+     *
+     * @param recipients usernames receiving the message
+     * @param text       the notification text
+     */
+    public void publish(final Iterable<String> recipients, final String text) {
+        Message m = null;
+        int id = nextMessageId;
+        for (String username : recipients) {
+            if (m == null) {
+                m = new Message(text);
+                messages.put(id, m);
+                nextMessageId++;
+            }
+            m.refs++;
+            inboxes.computeIfAbsent(username, k -> new Ring()).add(id);
+        }
+    }
+
+    /**
+     * Hands every pending notification of a user to {@code sink}, oldest
+     * first, and empties the inbox.
+     *
+     * @param username the user whose inbox is consumed
+     * @param sink     receives the texts
+     * @return how many of the user's notifications were dropped since the
+     *         previous drain because the inbox was full
+     */
+    public long drain(final String username, final Consumer<String> sink) {
+        Ring ring = inboxes.get(username);
+        if (ring == null) {
+            return 0;
+        }
+        for (int i = 0; i < ring.size; i++) {
+            int id = ring.ids[(ring.head + i) % ring.ids.length];
+            sink.accept(release(id));
+        }
+        ring.head = 0;
+        ring.size = 0;
+        long dropped = ring.overflow - ring.reported;
+        ring.reported = ring.overflow;
+        return dropped;
+    }
+
+    /**
+     * @param username a user
+     * @return how many of the user's notifications were dropped because the
+     *         inbox was full
+     */
+    public long getOverflow(final String username) {
+        Ring ring = inboxes.get(username);
+        return ring == null ? 0 : ring.overflow;
+    }
+
+    /**
+     * @return number of distinct message texts still referenced by an inbox
+     */
+    public int getStoredMessageCount() {
+        return messages.size();
+    }
+
+    /**
+     * Drops every pending notification.
+     */
+    public void clear() {
+        messages.clear();
+        inboxes.clear();
+        nextMessageId = 0;
+    }
+
+    private String release(final int id) {
+        Message m = messages.get(id);
+        m.refs--;
+        if (m.refs == 0) {
+            messages.remove(id);
+        }
+        return m.text;
+    }
+
+    /** A stored text and the number of inbox slots pointing to it. */
+    private static final class Message {
+        private final String text;
+        private int refs = 0;
+
+        Message(final String text) {
+            this.text = text;
+        }
+    }
+
+    /** Circular buffer of message ids, grown on demand up to the capacity. */
+    private final class Ring {
+        private int[] ids = new int[Math.min(INITIAL_RING_SIZE, capacity)];
+        private int head = 0;
+        private int size = 0;
+        private long overflow = 0;
+        // overflow already returned by a drain
+        private long reported = 0;
+
+        void add(final int id) {
+            if (size == capacity) {
+                release(ids[head]);
+                ids[head] = id;
+                head = (head + 1) % ids.length;
+                overflow++;
+                return;
+            }
+            if (size == ids.length) {
+                grow();
+            }
+            ids[(head + size) % ids.length] = id;
+            size++;
+        }
+
+        private void grow() {
+            int[] bigger = Arrays.copyOf(ids, Math.min(ids.length * 2, capacity));
+            // unwrap so that the oldest id is at index 0
+            for (int i = 0; i < size; i++) {
+                bigger[i] = ids[(head + i) % ids.length];
+            }
+            ids = bigger;
+            head = 0;
+        }
+    }
+}
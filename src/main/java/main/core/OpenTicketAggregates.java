@@ -0,0 +1,120 @@
+package main.core;
+
+import main.model.BusinessPriority;
+import main.model.Ticket;
+import main.model.TicketStatus;
+import main.model.TicketType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running totals over the OPEN tickets, per type and per priority: counts,
+ * risk weight sums and stability impact sums. Impacts are summed in whole
+ * cents so that removing a ticket restores the exact previous total.
+ *
+ * <p>Each counted ticket keeps the contribution it was added with, and a
+ * change of status or priority replaces that contribution, so the totals
+ * never drift from what a full scan would give.
+ */
+public final class OpenTicketAggregates {
+    private static final int TYPES = TicketType.values().length;
+
+    /** What one open ticket adds to the totals. */
+    private static final class Contribution {
+        private final TicketType type;
+        private final BusinessPriority priority;
+        private final int riskWeight;
+        private final long impactCents;
+
+        Contribution(final Ticket t) {
+            this.type = t.getType();
+            this.priority = t.getBusinessPriority();
+            this.riskWeight = ImpactScores.riskWeight(priority);
+            this.impactCents = ImpactScores.toCents(ImpactScores.stabilityImpact(t));
+        }
+    }
+
+    private final Map<Integer, Contribution> counted = new HashMap<>();
+    private final int[] countByType = new int[TYPES];
+    private final int[] countByPriority = new int[BusinessPriority.values().length];
+    private final long[] riskByType = new long[TYPES];
+    private final long[] impactCentsByType = new long[TYPES];
+
+    /**
+     * Recomputes the contribution of a ticket that was added or whose status
+     * or priority changed.
+     *
+     * @param t the ticket
+     */
+    public void update(final Ticket t) {
+        Contribution old = counted.remove(t.getId());
+        if (old != null) {
+            apply(old, -1);
+        }
+        if (t.getStatus() == TicketStatus.OPEN) {
+            Contribution c = new Contribution(t);
+            counted.put(t.getId(), c);
+            apply(c, 1);
+        }
+    }
+
+    private void apply(final Contribution c, final int sign) {
+        int type = c.type.ordinal();
+        countByType[type] += sign;
+        countByPriority[c.priority.ordinal()] += sign;
+        riskByType[type] += sign * c.riskWeight;
+        impactCentsByType[type] += sign * c.impactCents;
+    }
+
+    /**
+     * @return the number of open tickets
+     */
+    public int total() {
+        return counted.size();
+    }
+
+    /**
+     * @param type a ticket type
+     * @return the number of open tickets of that type
+     */
+    public int countOf(final TicketType type) {
+        return countByType[type.ordinal()];
+    }
+
+    /**
+     * @param priority a priority
+     * @return the number of open tickets with that priority
+     */
+    public int countOf(final BusinessPriority priority) {
+        return countByPriority[priority.ordinal()];
+    }
+
+    /**
+     * @param type a ticket type
+     * @return the summed risk weights of the open tickets of that type
+     */
+    public long riskWeightOf(final TicketType type) {
+        return riskByType[type.ordinal()];
+    }
+
+    /**
+     * @param type a ticket type
+     * @return the summed stability impact of the open tickets of that type
+     */
+    public double impactOf(final TicketType type) {
+        return ImpactScores.fromCents(impactCentsByType[type.ordinal()]);
+    }
+
+    /**
+     * Forgets every ticket.
+     */
+    public void clear() {
+        counted.clear();
+        Arrays.fill(countByType, 0);
+        Arrays.fill(countByPriority, 0);
+        Arrays.fill(riskByType, 0);
+        Arrays.fill(impactCentsByType, 0);
+    }
+}
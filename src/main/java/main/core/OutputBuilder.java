@@ -3,9 +3,11 @@ package main.core;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 import main.model.Ticket;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 public final class OutputBuilder {
     private static final ObjectMapper MAPPER = new ObjectMapper();
@@ -29,10 +31,27 @@ public final class OutputBuilder {
         return this;
     }
 
-    public OutputBuilder tickets(final List<Ticket> tickets) {
+    /**
+     * Same as {@link #error(String)} for a message built ahead of time; the
+     * node is shared by every output carrying it.
+     *
+     * @param message the error message
+     * @return this builder
+     */
+    public OutputBuilder error(final TextNode message) {
+        root.set("error", message);
+        return this;
+    }
+
+    /**
+     * @param tickets the tickets to list
+     * @param include the ticket fields to render
+     * @return this builder
+     */
+    public OutputBuilder tickets(final List<Ticket> tickets, final Predicate<String> include) {
         ArrayNode arr = root.putArray("tickets");
         for (Ticket t : tickets) {
-            arr.add(t.toOutputJson());
+            arr.add(t.toOutputJson(include));
         }
         return this;
     }
@@ -48,10 +67,16 @@ public final class OutputBuilder {
     public ObjectNode build() {
         return root;
     }
-    public OutputBuilder assignedTickets(final List<Ticket> tickets) {
+    /**
+     * @param tickets the tickets to list
+     * @param include the ticket fields to render
+     * @return this builder
+     */
+    public OutputBuilder assignedTickets(final List<Ticket> tickets,
+                                         final Predicate<String> include) {
         ArrayNode arr = root.putArray("assignedTickets");
         for (Ticket t : tickets) {
-            arr.add(t.toAssignedTicketJson());
+            arr.add(t.toAssignedTicketJson(include));
         }
         return this;
     }
@@ -60,6 +85,20 @@ public final class OutputBuilder {
         return this;
     }
 
+    /**
+     * Adds the cursor of the next page, for paged requests only.
+     *
+     * @param paging the request's paging parameters
+     * @param page   the page being returned
+     * @return this builder
+     */
+    public OutputBuilder nextCursor(final PageRequest paging, final PageRequest.Page<?> page) {
+        if (paging.isPaged()) {
+            root.put("nextCursor", page.getNextCursor());
+        }
+        return this;
+    }
+
     public OutputBuilder resultsEmpty() {
         root.putArray("results");
         return this;
@@ -0,0 +1,228 @@
+package main.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import main.model.BusinessPriority;
+import main.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.function.Function;
+
+/**
+ * Optional {@code limit} and {@code cursor} of a list command.
+ *
+ * <p>A cursor is the sort key of the last item of the previous page, as a
+ * string that orders like the view itself (see the {@code *Key} helpers),
+ * so the next page starts right after it whatever was added or removed in
+ * between. Without either parameter a request covers the whole list and
+ * the output keeps its historical shape.
+ *
+ * <p>The {@code after} methods parse the cursor back into the item's sort
+ * fields and enter the view there, with a {@code tailSet} or a binary
+ * search, so a page costs its own size rather than its offset. A cursor
+ * that is not a key of the view is taken to be past its end.
+ */
+public final class PageRequest {
+    private static final String ID_FORMAT = "%010d";
+    private static final String SEPARATOR = "/";
+    private static final Comparator<Ticket> BY_ID = Comparator.comparingInt(Ticket::getId);
+
+    private final int limit;
+    private final String cursor;
+
+    private PageRequest(final int limit, final String cursor) {
+        this.limit = limit;
+        this.cursor = cursor;
+    }
+
+    /**
+     * @param cmdNode a command
+     * @return an error message if its paging parameters are invalid, else null
+     */
+    public static String validate(final JsonNode cmdNode) {
+        JsonNode l = cmdNode.get("limit");
+        if (l != null && !l.isNull() && (!l.canConvertToInt() || l.asInt() <= 0)) {
+            return "The limit must be a positive integer.";
+        }
+        return null;
+    }
+
+    /**
+     * @param cmdNode a command that passed {@link #validate}
+     * @return its paging parameters
+     */
+    public static PageRequest of(final JsonNode cmdNode) {
+        int limit = Integer.MAX_VALUE;
+        JsonNode l = cmdNode.get("limit");
+        if (l != null && !l.isNull()) {
+            limit = l.asInt();
+        }
+        JsonNode c = cmdNode.get("cursor");
+        String cursor = c == null || c.isNull() ? null : c.asText();
+        return new PageRequest(limit, cursor);
+    }
+
+    /**
+     * @return whether the command asked for a page rather than the whole list
+     */
+    public boolean isPaged() {
+        return limit != Integer.MAX_VALUE || cursor != null;
+    }
+
+    /**
+     * @param byCreation a view in creation date, then id order
+     * @return the part of the view after the cursor
+     */
+    public NavigableSet<Ticket> after(final NavigableSet<Ticket> byCreation) {
+        if (cursor == null) {
+            return byCreation;
+        }
+        Ticket probe = creationProbe(cursor);
+        return probe == null ? Collections.emptyNavigableSet() : byCreation.tailSet(probe, false);
+    }
+
+    /**
+     * @param byPriority a view as one set per priority, from CRITICAL down,
+     *                   each in creation date, then id order
+     * @return the part of the view after the cursor, concatenated lazily
+     */
+    public Iterable<Ticket> after(final List<NavigableSet<Ticket>> byPriority) {
+        List<NavigableSet<Ticket>> rest = new ArrayList<>();
+        if (cursor == null) {
+            rest.addAll(byPriority);
+        } else {
+            String[] parts = cursor.split(SEPARATOR, 2);
+            int rank = parseInt(parts[0]);
+            Ticket probe = parts.length == 2 ? creationProbe(parts[1]) : null;
+            if (probe == null || rank < 0 || rank >= byPriority.size()) {
+                return Collections.emptyList();
+            }
+            rest.add(byPriority.get(rank).tailSet(probe, false));
+            rest.addAll(byPriority.subList(rank + 1, byPriority.size()));
+        }
+        return () -> rest.stream().flatMap(Collection::stream).iterator();
+    }
+
+    /**
+     * @param byId a view in id order, with random access
+     * @return the part of the view after the cursor
+     */
+    public List<Ticket> afterId(final List<Ticket> byId) {
+        if (cursor == null) {
+            return byId;
+        }
+        int id = parseInt(cursor);
+        if (id < 0) {
+            return Collections.emptyList();
+        }
+        int i = Collections.binarySearch(byId, new Ticket(id, null, null, null), BY_ID);
+        return byId.subList(i >= 0 ? i + 1 : -(i + 1), byId.size());
+    }
+
+    /**
+     * @param ids ticket ids in increasing order
+     * @return the ids after the cursor
+     */
+    public NavigableSet<Integer> afterId(final NavigableSet<Integer> ids) {
+        if (cursor == null) {
+            return ids;
+        }
+        int id = parseInt(cursor);
+        return id < 0 ? Collections.emptyNavigableSet() : ids.tailSet(id, false);
+    }
+
+    /**
+     * Picks the page out of a view already entered at the cursor (see the
+     * {@code after} methods). Iteration stops as soon as the page is full.
+     *
+     * @param rest the view from the first item after the cursor, in the
+     *             order {@code key} describes
+     * @param key  the cursor key of an item
+     * @param <T>  the item type
+     * @return the items of the page
+     */
+    public <T> Page<T> select(final Iterable<T> rest, final Function<T, String> key) {
+        List<T> items = new ArrayList<>();
+        for (T item : rest) {
+            if (items.size() == limit) {
+                // more remain
+                return new Page<>(items, key.apply(items.get(items.size() - 1)));
+            }
+            items.add(item);
+        }
+        return new Page<>(items, null);
+    }
+
+    /** @return a ticket that sorts at a creation key, or null if malformed */
+    private static Ticket creationProbe(final String key) {
+        int slash = key.lastIndexOf(SEPARATOR);
+        int id = slash < 0 ? -1 : parseInt(key.substring(slash + 1));
+        if (id < 0) {
+            return null;
+        }
+        Ticket probe = new Ticket(id, null, null, null);
+        probe.setCreatedAt(key.substring(0, slash));
+        return probe;
+    }
+
+    /** @return the non-negative integer a key field holds, or -1 */
+    private static int parseInt(final String field) {
+        try {
+            return Integer.parseInt(field);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** One page of a view. */
+    public static final class Page<T> {
+        private final List<T> items;
+        private final String nextCursor;
+
+        Page(final List<T> items, final String nextCursor) {
+            this.items = items;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<T> getItems() {
+            return items;
+        }
+
+        /**
+         * @return the cursor of the next page, or null on the last page
+         */
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+
+    /**
+     * @param t a ticket
+     * @return its key in id order (search, viewTicketHistory)
+     */
+    public static String idKey(final Ticket t) {
+        return String.format(ID_FORMAT, t.getId());
+    }
+
+    /**
+     * @param t a ticket
+     * @return its key in createdAt, then id order (viewTickets)
+     */
+    public static String creationKey(final Ticket t) {
+        return t.getCreatedAt() + SEPARATOR + idKey(t);
+    }
+
+    /**
+     * @param t a ticket
+     * @return its key in priority descending, then createdAt, then id order
+     *         (viewAssignedTickets)
+     */
+    public static String priorityKey(final Ticket t) {
+        int rank = BusinessPriority.values().length - 1 - t.getBusinessPriority().ordinal();
+        return rank + SEPARATOR + creationKey(t);
+    }
+}
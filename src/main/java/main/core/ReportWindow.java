@@ -0,0 +1,108 @@
+package main.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.IsoFields;
+
+/**
+ * The dates a performance report covers. A command may name a previous
+ * calendar {@code "window"} ({@code week}, {@code month} or
+ * {@code quarter}) or give explicit inclusive {@code from}/{@code to}
+ * dates; {@code to} defaults to the command's date. Without either, the
+ * report covers the previous calendar month.
+ *
+ * <p>Only a report on exactly the previous calendar month is the
+ * developer's score, however the command asked for it; other windows are
+ * a view.
+ */
+public final class ReportWindow {
+    private static final int MONTHS_PER_QUARTER = 3;
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final boolean custom;
+    private final boolean scored;
+
+    private ReportWindow(final LocalDate from, final LocalDate to, final boolean custom,
+                         final LocalDate now) {
+        this.from = from;
+        this.to = to;
+        this.custom = custom;
+        LocalDate first = now.withDayOfMonth(1).minusMonths(1);
+        this.scored = from.equals(first) && to.equals(first.plusMonths(1).minusDays(1));
+    }
+
+    /**
+     * @param cmdNode   a report command
+     * @param timestamp its date
+     * @return the window it asks for, or null if the window is invalid
+     */
+    public static ReportWindow of(final JsonNode cmdNode, final String timestamp) {
+        LocalDate now = LocalDate.parse(timestamp);
+        try {
+            if (cmdNode.hasNonNull("from")) {
+                LocalDate from = LocalDate.parse(cmdNode.get("from").asText());
+                LocalDate to = cmdNode.hasNonNull("to")
+                        ? LocalDate.parse(cmdNode.get("to").asText()) : now;
+                return from.isAfter(to) ? null : new ReportWindow(from, to, true, now);
+            }
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+        if (cmdNode.hasNonNull("to")) {
+            return null;
+        }
+        String window = cmdNode.hasNonNull("window") ? cmdNode.get("window").asText() : null;
+        if (window == null || "month".equals(window)) {
+            LocalDate first = now.withDayOfMonth(1).minusMonths(1);
+            return new ReportWindow(first, first.plusMonths(1).minusDays(1), window != null,
+                    now);
+        }
+        if ("week".equals(window)) {
+            LocalDate monday = now.with(DayOfWeek.MONDAY).minusWeeks(1);
+            return new ReportWindow(monday, monday.plusDays(DayOfWeek.values().length - 1), true,
+                    now);
+        }
+        if ("quarter".equals(window)) {
+            int quarter = now.get(IsoFields.QUARTER_OF_YEAR);
+            LocalDate first = LocalDate.of(now.getYear(), (quarter - 1) * MONTHS_PER_QUARTER + 1, 1)
+                    .minusMonths(MONTHS_PER_QUARTER);
+            return new ReportWindow(first, first.plusMonths(MONTHS_PER_QUARTER).minusDays(1),
+                    true, now);
+        }
+        return null;
+    }
+
+    /**
+     * @return the first day, inclusive
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * @return the last day, inclusive
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * @return whether the command asked for something other than the default
+     *         window, in which case the output names the dates it covers
+     */
+    public boolean isCustom() {
+        return custom;
+    }
+
+    /**
+     * @return whether the window is the previous calendar month, so the
+     *         report updates the developers' performance scores
+     */
+    public boolean isScored() {
+        return scored;
+    }
+}
@@ -1,48 +1,119 @@
 package main.core;
 
 import lombok.Getter;
+import main.model.BusinessPriority;
 import main.model.Milestone;
 import main.model.Ticket;
+import main.model.TicketAction;
+import main.model.TicketListener;
+import main.model.TicketStatus;
 import main.model.User;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
-public final class SystemState {
-    private static final SystemState INSTANCE = new SystemState();
+/**
+ * Holds the users, tickets, milestones and notifications of one project.
+ * Every command stream gets its own instance, so independent projects can
+ * be processed side by side in the same JVM.
+ *
+ * <p>Within one project, state follows a single-writer/multi-reader model:
+ * commands that mutate anything run under {@link #writeLock()}, one at a
+ * time and in input order, while read-only queries share {@link #readLock()}.
+ *
+ * <p>The state listens to its own tickets and keeps the derived data in
+ * step with them, e.g. it invalidates the cached views of the milestones a
+ * ticket change can affect.
+ */
+public final class SystemState implements TicketListener {
     @Getter
     public final Map<String, User> users = new HashMap<>();
-    public final List<Ticket> tickets = new ArrayList<>();
+    public final ArrayList<Ticket> tickets = new ArrayList<>();
+    private final Map<Integer, Ticket> ticketsById = new HashMap<>();
+    // username -> ids of the tickets the user recorded an action on
+    private final Map<String, NavigableSet<Integer>> participation = new HashMap<>();
 
     // --- Milestones ---
     private final Map<String, Milestone> milestonesByName = new HashMap<>();
     private final Map<Integer, String> ticketToMilestone = new HashMap<>();
+    private final MilestoneGraph milestoneGraph = new MilestoneGraph();
+    private final TeamIndex teams = new TeamIndex();
+    private final TicketViews ticketViews = new TicketViews();
+    private final EscalationSchedule escalations = new EscalationSchedule();
+    private final OpenTicketAggregates openTickets = new OpenTicketAggregates();
+    private final MetricsHistory metricsHistory = new MetricsHistory();
+    private final ClosureLedger closures = new ClosureLedger();
+    private final Map<String, List<Integer>> ticketsLinkedTo = new HashMap<>();
 
     private int nextTicketId = 0;
-    public boolean stopped = false;
+    public volatile boolean stopped = false;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
     // --- Testing phase tracking (12 days) ---
     private static final int TESTING_DAYS = 12;
     private LocalDate testingStartDate = null;
 
-    private final Map<String, List<String>> notifications = new HashMap<>();
-    private final Map<String, String> lastNotificationDate = new HashMap<>();
+    private final NotificationOutbox notifications;
+    // Milestone ids are per name, so a re-created milestone keeps its history.
+    private final Map<String, Integer> milestoneIds = new HashMap<>();
+    private static final int INITIAL_MILESTONE_SLOTS = 16;
+    // One bit per MilestoneEvent, indexed by milestone id
+    private byte[] firedEvents = new byte[INITIAL_MILESTONE_SLOTS];
+
+    public SystemState() {
+        this(NotificationOutbox.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param notificationCapacity pending notifications kept per user before
+     *                             the oldest ones are dropped
+     */
+    public SystemState(final int notificationCapacity) {
+        this.notifications = new NotificationOutbox(notificationCapacity);
+    }
 
-    private SystemState() {
+    /**
+     * Lock held by readers; taken while the write lock is held, it downgrades
+     * the writer so a query sees exactly the state its own automations left.
+     *
+     * @return the shared read lock
+     */
+    public Lock readLock() {
+        return lock.readLock();
     }
 
-    public static SystemState getInstance() {
-        return INSTANCE;
+    /**
+     * Lock serializing every mutation of this state.
+     *
+     * @return the exclusive write lock
+     */
+    public Lock writeLock() {
+        return lock.writeLock();
     }
 
     public void addUser(final User user) {
+        teams.addUser(user, users::get);
         users.put(user.getUsername(), user);
     }
 
+    public TeamIndex getTeams() {
+        return teams;
+    }
+
     public User getUser(final String username) {
         return users.get(username);
     }
@@ -51,6 +122,45 @@ public final class SystemState {
         return tickets;
     }
 
+    /**
+     * Stores a new ticket and starts tracking its changes. Ids are allocated
+     * in increasing order, so {@link #getTickets()} stays sorted by id.
+     *
+     * @param t the ticket
+     */
+    public void addTicket(final Ticket t) {
+        tickets.add(t);
+        index(t);
+    }
+
+    /**
+     * Stores a batch of new tickets, in increasing id order, reserving room
+     * for all of them before indexing them.
+     *
+     * @param batch the tickets
+     */
+    public void addTickets(final List<Ticket> batch) {
+        tickets.ensureCapacity(tickets.size() + batch.size());
+        tickets.addAll(batch);
+        for (Ticket t : batch) {
+            index(t);
+        }
+    }
+
+    private void index(final Ticket t) {
+        ticketsById.put(t.getId(), t);
+        ticketViews.ticketAdded(t);
+        openTickets.update(t);
+        for (TicketAction a : t.getActions()) {
+            actionAdded(t, a);
+        }
+        t.setListener(this);
+    }
+
+    public TicketViews getTicketViews() {
+        return ticketViews;
+    }
+
     public int allocateTicketId() {
         int id = nextTicketId;
         nextTicketId++;
@@ -79,17 +189,108 @@ public final class SystemState {
     }
 
     public Ticket findTicket(final int id) {
-        for (Ticket t : tickets) {
-            if (t.getId() == id) {
-                return t;
-            }
-        }
-        return null;
+        return ticketsById.get(id);
     }
 
     // --- Milestone storage helpers ---
     public void addMilestone(final Milestone m) {
-        milestonesByName.put(m.getName(), m);
+        // milestones blocked by the old or the new edges change their isBlocked
+        Set<String> affected = new HashSet<>(milestoneGraph.blocking(m.getName()));
+        affected.addAll(m.getBlockingFor());
+        Milestone replaced = milestonesByName.put(m.getName(), m);
+        teams.milestoneAdded(m, replaced);
+        milestoneGraph.setEdges(m.getName(), m.getBlockingFor());
+        for (int tid : m.getTickets()) {
+            Ticket t = ticketsById.get(tid);
+            if (t != null) {
+                m.ticketReassigned(tid, "", t.getAssignedTo());
+            }
+        }
+        for (String name : affected) {
+            invalidateMilestone(name);
+        }
+        escalations.schedule(m);
+    }
+
+    public OpenTicketAggregates getOpenTickets() {
+        return openTickets;
+    }
+
+    public ClosureLedger getClosures() {
+        return closures;
+    }
+
+    public MetricsHistory getMetricsHistory() {
+        return metricsHistory;
+    }
+
+    public EscalationSchedule getEscalations() {
+        return escalations;
+    }
+
+    @Override
+    public void statusChanged(final Ticket ticket, final TicketStatus from) {
+        openTickets.update(ticket);
+        String msName = ticketToMilestone.get(ticket.getId());
+        if (msName == null) {
+            return;
+        }
+        invalidateMilestone(msName);
+        Milestone m = milestonesByName.get(msName);
+        if (m != null && from == TicketStatus.CLOSED) {
+            escalations.reactivated(m);
+        }
+        // the activity of a milestone decides whether the ones it blocks are blocked
+        for (String blocked : milestoneGraph.blocking(msName)) {
+            invalidateMilestone(blocked);
+        }
+    }
+
+    @Override
+    public void assigneeChanged(final Ticket ticket, final String from) {
+        ticketViews.assigneeChanged(ticket, from);
+        String msName = ticketToMilestone.get(ticket.getId());
+        Milestone m = msName == null ? null : milestonesByName.get(msName);
+        if (m != null) {
+            m.ticketReassigned(ticket.getId(), from, ticket.getAssignedTo());
+            m.invalidate();
+        }
+    }
+
+    @Override
+    public void priorityChanged(final Ticket ticket, final BusinessPriority from) {
+        ticketViews.priorityChanged(ticket, from);
+        openTickets.update(ticket);
+    }
+
+    @Override
+    public void actionAdded(final Ticket ticket, final TicketAction action) {
+        if (action.getBy() != null) {
+            participation.computeIfAbsent(action.getBy(), k -> new TreeSet<>())
+                    .add(ticket.getId());
+        }
+        closures.actionRecorded(ticket, action);
+    }
+
+    /**
+     * @param username a user
+     * @return ids of the tickets the user recorded an action on, ascending
+     */
+    public NavigableSet<Integer> getTicketsActedOnBy(final String username) {
+        NavigableSet<Integer> ids = participation.get(username);
+        return ids == null ? Collections.emptyNavigableSet()
+                : Collections.unmodifiableNavigableSet(ids);
+    }
+
+    private void invalidateMilestone(final String name) {
+        Milestone m = milestonesByName.get(name);
+        if (m != null) {
+            m.invalidate();
+        }
+    }
+
+    public MilestoneGraph getMilestoneGraph() {
+        return milestoneGraph;
     }
 
     public Milestone getMilestone(final String name) {
@@ -100,22 +301,56 @@ public final class SystemState {
         return milestonesByName.values();
     }
 
+    /**
+     * @return the tickets linked to a milestone, by id
+     */
+    public List<Ticket> getMilestoneTickets() {
+        List<Ticket> linked = new ArrayList<>();
+        for (Ticket t : tickets) {
+            if (ticketToMilestone.containsKey(t.getId())) {
+                linked.add(t);
+            }
+        }
+        return linked;
+    }
+
     public String getMilestoneNameForTicket(final int ticketId) {
         return ticketToMilestone.get(ticketId);
     }
 
     public void linkTicketToMilestone(final int ticketId, final String milestoneName) {
         ticketToMilestone.put(ticketId, milestoneName);
+        ticketsLinkedTo.computeIfAbsent(milestoneName, k -> new ArrayList<>()).add(ticketId);
+    }
+
+    /**
+     * @param milestoneName a milestone name
+     * @return ids of the tickets linked to that name, including those of an
+     *         earlier milestone with the same name
+     */
+    public List<Integer> getTicketsLinkedTo(final String milestoneName) {
+        return ticketsLinkedTo.getOrDefault(milestoneName, List.of());
     }
     public void reset() {
         users.clear();
         tickets.clear();
+        ticketsById.clear();
 
         milestonesByName.clear();
          ticketToMilestone.clear();
+        ticketsLinkedTo.clear();
+        escalations.clear();
+        milestoneGraph.clear();
+        teams.clear();
+        ticketViews.clear();
+        participation.clear();
+        openTickets.clear();
+        metricsHistory.clear();
+        closures.clear();
 
         notifications.clear();
-        lastNotificationDate.clear();
+        milestoneIds.clear();
+        firedEvents = new byte[INITIAL_MILESTONE_SLOTS];
 
         nextTicketId = 0;
         stopped = false;
@@ -123,24 +358,60 @@ public final class SystemState {
          testingStartDate = null;
     }
     public void pushNotification(final String username, final String message) {
-        notifications.computeIfAbsent(username, k -> new ArrayList<>()).add(message);
+        notifications.publish(List.of(username), message);
     }
 
-    public List<String> consumeNotifications(final String username) {
-        List<String> list = notifications.get(username);
-        if (list == null) {
-            return new ArrayList<>();
-        }
-        List<String> out = new ArrayList<>(list);
-        list.clear(); // consume
-        return out;
+    /**
+     * Sends the same notification to several users; the text is stored once.
+     *
+     * @param usernames recipients
+     * @param message   the notification text
+     */
+    public void broadcastNotification(final Iterable<String> usernames, final String message) {
+        notifications.publish(usernames, message);
+    }
+
+    /**
+     * Consumes a user's pending notifications, oldest first.
+     *
+     * @param username the user
+     * @param sink     receives every pending notification
+     * @return how many notifications were dropped since the previous drain
+     *         because the user's inbox was full
+     */
+    public long drainNotifications(final String username, final Consumer<String> sink) {
+        return notifications.drain(username, sink);
+    }
+
+    public NotificationOutbox getNotifications() {
+        return notifications;
+    }
+
+    /**
+     * @param name a milestone name
+     * @return the id of that name, allocating the next one on first use
+     */
+    public int milestoneIdFor(final String name) {
+        return milestoneIds.computeIfAbsent(name, k -> milestoneIds.size());
     }
 
-    public boolean markOnce(final String key, final String dateIso) {
-        if (lastNotificationDate.containsKey(key)) {
+    /**
+     * Records that {@code event} fired for a milestone.
+     *
+     * @param event     the notification kind
+     * @param milestone the milestone it concerns
+     * @return true the first time, false if it already fired
+     */
+    public boolean markOnce(final MilestoneEvent event, final Milestone milestone) {
+        int id = milestone.getId();
+        if (id >= firedEvents.length) {
+            firedEvents = Arrays.copyOf(firedEvents, Math.max(id + 1, firedEvents.length * 2));
+        }
+        int bit = 1 << event.ordinal();
+        if ((firedEvents[id] & bit) != 0) {
             return false;
         }
-        lastNotificationDate.put(key, dateIso);
+        firedEvents[id] = (byte) (firedEvents[id] | bit);
         return true;
     }
 }
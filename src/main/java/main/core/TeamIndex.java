@@ -0,0 +1,110 @@
+package main.core;
+
+import main.model.Developer;
+import main.model.Manager;
+import main.model.Milestone;
+import main.model.Role;
+import main.model.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * What each manager's commands are scoped to, maintained as users,
+ * milestones and assignments come in instead of being filtered per call:
+ * <ul>
+ *   <li>the subordinate developers, sorted by username;</li>
+ *   <li>the milestones the manager created.</li>
+ * </ul>
+ * Users can be added in any order; a subordinate joins the team of a
+ * manager added before or after it.
+ */
+public final class TeamIndex {
+    private final Map<String, Team> teams = new HashMap<>();
+    private final Map<String, List<Team>> teamsOfSubordinate = new HashMap<>();
+
+    /** Scope of one manager. */
+    private static final class Team {
+        private final List<Developer> developers = new ArrayList<>();
+        private final Map<String, Milestone> milestones = new LinkedHashMap<>();
+    }
+
+    /**
+     * @param user   a newly loaded user
+     * @param loaded looks up the users loaded before it
+     */
+    public void addUser(final User user, final Function<String, User> loaded) {
+        if (user instanceof Manager) {
+            Team team = teams.computeIfAbsent(user.getUsername(), k -> new Team());
+            for (String sub : ((Manager) user).getSubordinates()) {
+                teamsOfSubordinate.computeIfAbsent(sub, k -> new ArrayList<>()).add(team);
+                join(team, loaded.apply(sub));
+            }
+        } else {
+            for (Team team : teamsOfSubordinate.getOrDefault(user.getUsername(),
+                    Collections.emptyList())) {
+                join(team, user);
+            }
+        }
+    }
+
+    private static void join(final Team team, final User user) {
+        if (user == null || user.getRole() != Role.DEVELOPER) {
+            return;
+        }
+        team.developers.add((Developer) user);
+        team.developers.sort(Comparator.comparing(User::getUsername));
+    }
+
+    /**
+     * @param m        a new milestone
+     * @param replaced the milestone previously stored under the same name, or null
+     */
+    public void milestoneAdded(final Milestone m, final Milestone replaced) {
+        if (replaced != null) {
+            Team previous = teams.get(replaced.getCreatedBy());
+            if (previous != null) {
+                previous.milestones.remove(replaced.getName());
+            }
+        }
+        Team team = teams.get(m.getCreatedBy());
+        if (team != null) {
+            team.milestones.put(m.getName(), m);
+        }
+    }
+
+    /**
+     * @param manager a manager's username
+     * @return the manager's subordinate developers, sorted by username
+     */
+    public List<Developer> developersOf(final String manager) {
+        Team team = teams.get(manager);
+        return team == null ? Collections.emptyList()
+                : Collections.unmodifiableList(team.developers);
+    }
+
+    /**
+     * @param manager a manager's username
+     * @return the milestones created by the manager
+     */
+    public Collection<Milestone> milestonesOf(final String manager) {
+        Team team = teams.get(manager);
+        return team == null ? Collections.emptyList()
+                : Collections.unmodifiableCollection(team.milestones.values());
+    }
+
+    /**
+     * Forgets every team.
+     */
+    public void clear() {
+        teams.clear();
+        teamsOfSubordinate.clear();
+    }
+}
@@ -0,0 +1,109 @@
+package main.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import main.model.BusinessPriority;
+import main.model.Ticket;
+import main.model.TicketType;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk creation of tickets, as if each one had been sent as a reportTicket
+ * command at the same date: ids are allocated in order, one per entry, and
+ * the anonymous-ticket rule applies. The whole batch is stored at once and
+ * indexed after it is stored.
+ *
+ * <p>An entry may carry its own {@code createdAt} so that migrated tickets
+ * keep their original creation date.
+ */
+public final class TicketImport {
+    private static final String[] REQUIRED = {"type", "title", "businessPriority", "reportedBy"};
+
+    /** Outcome of one import. */
+    public static final class Result {
+        private int imported;
+        private final Map<Integer, String> rejected = new LinkedHashMap<>();
+
+        /**
+         * @return the number of tickets created
+         */
+        public int getImported() {
+            return imported;
+        }
+
+        /**
+         * @return the errors of the rejected entries, by position in the batch
+         */
+        public Map<Integer, String> getRejected() {
+            return rejected;
+        }
+    }
+
+    private TicketImport() {
+    }
+
+    /**
+     * @param state     the state to import into
+     * @param entries   the reportTicket params of each ticket
+     * @param timestamp the creation date of entries without their own
+     * @return how many tickets were created and why the others were not
+     */
+    public static Result run(final SystemState state, final JsonNode entries,
+                             final String timestamp) {
+        Result result = new Result();
+        List<Ticket> batch = new ArrayList<>(entries.size());
+        int index = 0;
+        for (JsonNode params : entries) {
+            int id = state.allocateTicketId();
+            String error = check(params);
+            Ticket t = null;
+            if (error == null) {
+                String createdAt = params.hasNonNull("createdAt")
+                        ? params.get("createdAt").asText() : timestamp;
+                t = TicketFactory.createTicket(id, createdAt, params);
+                if (t == null) {
+                    error = "Anonymous reports are only allowed for tickets of type BUG.";
+                }
+            }
+            if (t == null) {
+                result.rejected.put(index, error);
+            } else {
+                batch.add(t);
+            }
+            index++;
+        }
+        state.addTickets(batch);
+        result.imported = batch.size();
+        return result;
+    }
+
+    private static String check(final JsonNode params) {
+        if (params == null || !params.isObject()) {
+            return "A ticket must be an object.";
+        }
+        for (String field : REQUIRED) {
+            if (!params.hasNonNull(field)) {
+                return "The field " + field + " is missing.";
+            }
+        }
+        try {
+            TicketType.valueOf(params.get("type").asText());
+            BusinessPriority.valueOf(params.get("businessPriority").asText());
+        } catch (IllegalArgumentException e) {
+            return "Unknown type or business priority.";
+        }
+        if (params.hasNonNull("createdAt")) {
+            try {
+                LocalDate.parse(params.get("createdAt").asText());
+            } catch (DateTimeParseException e) {
+                return "The creation date is invalid.";
+            }
+        }
+        return null;
+    }
+}
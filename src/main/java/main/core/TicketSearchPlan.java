@@ -0,0 +1,342 @@
+package main.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import main.model.BusinessPriority;
+import main.model.Developer;
+import main.model.Milestone;
+import main.model.Role;
+import main.model.Ticket;
+import main.model.TicketStatus;
+import main.model.TicketType;
+import main.model.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * A ticket search compiled once from its filters and the requester's role.
+ *
+ * <p>Role visibility picks the candidate set: a reporter's own tickets and
+ * a developer's milestone tickets come from indexes, a manager scans every
+ * ticket. The remaining filters are independent conjuncts, so they run
+ * cheapest-and-most-selective first: each is ranked by
+ * {@code cost / (1 - selectivity)}, selectivities being estimated from the
+ * number of values the filtered field can take. Keyword patterns are
+ * compiled once per plan instead of once per ticket.
+ *
+ * <p>Plans hold no state of a particular run and can be shared between
+ * threads.
+ */
+public final class TicketSearchPlan {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final int CHEAP = 1;
+    private static final int STRING_COMPARE = 2;
+    private static final int PER_KEYWORD = 3;
+    // milestone lookup, isBlocked and expertise checks
+    private static final int ASSIGNABILITY = 10;
+    private static final double HALF = 0.5;
+    private static final double KEYWORD_SELECTIVITY = 0.3;
+
+    /** Where the candidate tickets come from. */
+    private enum Source {
+        /** Nothing can match, e.g. availability asked by a non-developer. */
+        NONE,
+        /** The tickets the requester reported. */
+        REPORTER_INDEX,
+        /** The tickets of the milestones the requester is assigned to. */
+        DEVELOPER_MILESTONES,
+        /** Every ticket. */
+        ALL_TICKETS
+    }
+
+    /** One conjunct of the plan. */
+    private abstract static class Filter {
+        private final String name;
+        private final double selectivity;
+        private final int cost;
+
+        Filter(final String name, final double selectivity, final int cost) {
+            this.name = name;
+            this.selectivity = selectivity;
+            this.cost = cost;
+        }
+
+        double rank() {
+            return cost / (1.0 - selectivity);
+        }
+
+        abstract boolean test(Ticket t, Run run);
+    }
+
+    /** Per-execution state handed to the filters. */
+    private static final class Run {
+        private final Developer developer;
+        private final BiPredicate<Ticket, Developer> assignable;
+        private List<String> matching = Collections.emptyList();
+
+        Run(final Developer developer, final BiPredicate<Ticket, Developer> assignable) {
+            this.developer = developer;
+            this.assignable = assignable;
+        }
+    }
+
+    /** Outcome of one execution. */
+    public static final class Result {
+        private final List<Ticket> tickets = new ArrayList<>();
+        private final Map<Integer, List<String>> matchingWords = new HashMap<>();
+        private int candidates;
+        private int[] passed;
+
+        /**
+         * @return the matching tickets, by id
+         */
+        public List<Ticket> getTickets() {
+            return tickets;
+        }
+
+        /**
+         * @param ticketId a matching ticket
+         * @return the keywords found in its title, in filter order
+         */
+        public List<String> matchingWordsOf(final int ticketId) {
+            return matchingWords.getOrDefault(ticketId, Collections.emptyList());
+        }
+    }
+
+    private final Role role;
+    private final Source source;
+    private final List<Filter> filters;
+    private final boolean hasKeywords;
+
+    private TicketSearchPlan(final Role role, final Source source, final List<Filter> filters,
+                             final boolean hasKeywords) {
+        this.role = role;
+        this.source = source;
+        this.filters = filters;
+        this.hasKeywords = hasKeywords;
+    }
+
+    /**
+     * @param filters the "filters" object of a TICKET search
+     * @param role    the requester's role
+     * @return the compiled plan
+     */
+    public static TicketSearchPlan compile(final JsonNode filters, final Role role) {
+        List<Filter> plan = new ArrayList<>();
+        plan.add(new Filter("status", 1.0 / TicketStatus.values().length, CHEAP) {
+            @Override
+            boolean test(final Ticket t, final Run run) {
+                return t.getStatus() == TicketStatus.OPEN;
+            }
+        });
+
+        boolean available = filters.has("availableForAssignment")
+                && filters.get("availableForAssignment").asBoolean();
+        Source source = sourceFor(role);
+        if (available) {
+            // only developers can assign tickets
+            if (role != Role.DEVELOPER) {
+                source = Source.NONE;
+            }
+            plan.add(new Filter("unassigned", HALF, CHEAP) {
+                @Override
+                boolean test(final Ticket t, final Run run) {
+                    return t.getAssignedTo() == null || t.getAssignedTo().isEmpty();
+                }
+            });
+            plan.add(new Filter("assignable", HALF, ASSIGNABILITY) {
+                @Override
+                boolean test(final Ticket t, final Run run) {
+                    return run.assignable.test(t, run.developer);
+                }
+            });
+        }
+
+        if (filters.has("type")) {
+            String type = filters.get("type").asText();
+            plan.add(new Filter("type", 1.0 / TicketType.values().length, CHEAP) {
+                @Override
+                boolean test(final Ticket t, final Run run) {
+                    return t.getType().name().equals(type);
+                }
+            });
+        }
+        if (filters.has("businessPriority")) {
+            String priority = filters.get("businessPriority").asText();
+            plan.add(new Filter("businessPriority", 1.0 / BusinessPriority.values().length,
+                    CHEAP) {
+                @Override
+                boolean test(final Ticket t, final Run run) {
+                    return t.getBusinessPriority().name().equals(priority);
+                }
+            });
+        }
+        if (filters.has("createdAfter")) {
+            // strictly after the date
+            String createdAfter = filters.get("createdAfter").asText();
+            plan.add(new Filter("createdAfter", HALF, STRING_COMPARE) {
+                @Override
+                boolean test(final Ticket t, final Run run) {
+                    return t.getCreatedAt().compareTo(createdAfter) > 0;
+                }
+            });
+        }
+
+        List<String> keywords = new ArrayList<>();
+        if (filters.has("keywords") && filters.get("keywords").isArray()) {
+            for (JsonNode k : filters.get("keywords")) {
+                keywords.add(k.asText());
+            }
+        }
+        if (!keywords.isEmpty()) {
+            plan.add(keywordFilter(keywords));
+        }
+
+        plan.sort(Comparator.comparingDouble(Filter::rank));
+        return new TicketSearchPlan(role, source, plan, !keywords.isEmpty());
+    }
+
+    private static Source sourceFor(final Role role) {
+        switch (role) {
+            case REPORTER:
+                return Source.REPORTER_INDEX;
+            case DEVELOPER:
+                return Source.DEVELOPER_MILESTONES;
+            default:
+                return Source.ALL_TICKETS;
+        }
+    }
+
+    /** At least one keyword must be a whole word of the title, ignoring case. */
+    private static Filter keywordFilter(final List<String> keywords) {
+        List<Pattern> patterns = new ArrayList<>();
+        for (String kw : keywords) {
+            patterns.add(Pattern.compile("\\b" + Pattern.quote(kw.toLowerCase()) + "\\b"));
+        }
+        return new Filter("keywords", KEYWORD_SELECTIVITY, PER_KEYWORD * keywords.size()) {
+            @Override
+            boolean test(final Ticket t, final Run run) {
+                String titleLower = t.getTitle().toLowerCase();
+                List<String> matching = new ArrayList<>();
+                for (int i = 0; i < patterns.size(); i++) {
+                    if (patterns.get(i).matcher(titleLower).find()) {
+                        matching.add(keywords.get(i));
+                    }
+                }
+                run.matching = matching;
+                return !matching.isEmpty();
+            }
+        };
+    }
+
+    /**
+     * @return whether the search filters on keywords
+     */
+    public boolean hasKeywords() {
+        return hasKeywords;
+    }
+
+    /**
+     * Runs the plan.
+     *
+     * @param state      the state to search
+     * @param requester  the user searching
+     * @param assignable whether a developer could assign a ticket right now
+     * @return the matching tickets and their matching keywords
+     */
+    public Result execute(final SystemState state, final User requester,
+                          final BiPredicate<Ticket, Developer> assignable) {
+        Result result = new Result();
+        result.passed = new int[filters.size()];
+        List<Ticket> candidates = candidates(state, requester.getUsername());
+        result.candidates = candidates.size();
+
+        Developer developer = requester instanceof Developer ? (Developer) requester : null;
+        Run run = new Run(developer, assignable);
+        for (Ticket t : candidates) {
+            run.matching = Collections.emptyList();
+            boolean match = true;
+            for (int i = 0; i < filters.size() && match; i++) {
+                match = filters.get(i).test(t, run);
+                if (match) {
+                    result.passed[i]++;
+                }
+            }
+            if (match) {
+                result.tickets.add(t);
+                result.matchingWords.put(t.getId(), run.matching);
+            }
+        }
+        return result;
+    }
+
+    /** Candidate tickets in id order, already restricted to what the role may see. */
+    private List<Ticket> candidates(final SystemState state, final String username) {
+        switch (source) {
+            case NONE:
+                return Collections.emptyList();
+            case REPORTER_INDEX:
+                List<Ticket> own = new ArrayList<>(state.getTicketViews().reportedBy(username));
+                own.sort(Comparator.comparingInt(Ticket::getId));
+                return own;
+            case DEVELOPER_MILESTONES:
+                return developerCandidates(state, username);
+            default:
+                return state.getTickets(); // kept in id order
+        }
+    }
+
+    /** Tickets linked to the milestones the developer is assigned to, by id. */
+    private static List<Ticket> developerCandidates(final SystemState state,
+                                                    final String username) {
+        List<Integer> ids = new ArrayList<>();
+        for (Milestone m : state.getAllMilestones()) {
+            if (m.isDevAssigned(username)) {
+                ids.addAll(state.getTicketsLinkedTo(m.getName()));
+            }
+        }
+        Collections.sort(ids);
+        List<Ticket> tickets = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Ticket t = state.findTicket(id);
+            if (t != null) {
+                tickets.add(t);
+            }
+        }
+        return tickets;
+    }
+
+    /**
+     * Describes the plan and how many tickets survived each step.
+     *
+     * @param result a result of this plan
+     * @return the explanation node
+     */
+    public ObjectNode explain(final Result result) {
+        ObjectNode plan = MAPPER.createObjectNode();
+        plan.put("role", role.name());
+        plan.put("source", source.name());
+        plan.put("candidates", result.candidates);
+        ArrayNode steps = plan.putArray("filters");
+        for (int i = 0; i < filters.size(); i++) {
+            Filter f = filters.get(i);
+            ObjectNode step = steps.addObject();
+            step.put("filter", f.name);
+            step.put("estimatedSelectivity", f.selectivity);
+            step.put("cost", f.cost);
+            step.put("passed", result.passed[i]);
+        }
+        plan.put("results", result.tickets.size());
+        return plan;
+    }
+}
@@ -0,0 +1,124 @@
+package main.core;
+
+import main.model.BusinessPriority;
+import main.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Ticket orders the views stream out, maintained on every mutation instead
+ * of being sorted per request:
+ * <ul>
+ *   <li>every ticket by creation date, then id (viewTickets);</li>
+ *   <li>the same order per reporter;</li>
+ *   <li>per assignee, one bucket per priority, each in creation order
+ *   (viewAssignedTickets walks the buckets from CRITICAL down).</li>
+ * </ul>
+ * Creation dates and reporters never change once a ticket is stored;
+ * assignee and priority changes move a ticket in O(log n).
+ */
+public final class TicketViews {
+    private static final Comparator<Ticket> BY_CREATION = Comparator
+            .comparing(Ticket::getCreatedAt)
+            .thenComparingInt(Ticket::getId);
+
+    private final NavigableSet<Ticket> byCreation = new TreeSet<>(BY_CREATION);
+    private final Map<String, NavigableSet<Ticket>> byReporter = new HashMap<>();
+    private final Map<String, EnumMap<BusinessPriority, NavigableSet<Ticket>>> byAssignee =
+            new HashMap<>();
+
+    /**
+     * @param t a new ticket
+     */
+    public void ticketAdded(final Ticket t) {
+        byCreation.add(t);
+        if (!t.getReportedBy().isEmpty()) {
+            byReporter.computeIfAbsent(t.getReportedBy(), k -> new TreeSet<>(BY_CREATION)).add(t);
+        }
+        if (!t.getAssignedTo().isEmpty()) {
+            bucket(t.getAssignedTo(), t.getBusinessPriority()).add(t);
+        }
+    }
+
+    /**
+     * @param t    a ticket whose assignee changed
+     * @param from the previous assignee, empty if none
+     */
+    public void assigneeChanged(final Ticket t, final String from) {
+        if (!from.isEmpty()) {
+            bucket(from, t.getBusinessPriority()).remove(t);
+        }
+        if (!t.getAssignedTo().isEmpty()) {
+            bucket(t.getAssignedTo(), t.getBusinessPriority()).add(t);
+        }
+    }
+
+    /**
+     * @param t    a ticket whose priority changed
+     * @param from the previous priority
+     */
+    public void priorityChanged(final Ticket t, final BusinessPriority from) {
+        if (t.getAssignedTo().isEmpty()) {
+            return;
+        }
+        bucket(t.getAssignedTo(), from).remove(t);
+        bucket(t.getAssignedTo(), t.getBusinessPriority()).add(t);
+    }
+
+    /**
+     * @return every ticket, by creation date then id
+     */
+    public NavigableSet<Ticket> byCreation() {
+        return Collections.unmodifiableNavigableSet(byCreation);
+    }
+
+    /**
+     * @param reporter a username
+     * @return the tickets reported by that user, by creation date then id
+     */
+    public NavigableSet<Ticket> reportedBy(final String reporter) {
+        NavigableSet<Ticket> set = byReporter.get(reporter);
+        return set == null ? Collections.emptyNavigableSet()
+                : Collections.unmodifiableNavigableSet(set);
+    }
+
+    /**
+     * @param assignee a developer's username
+     * @return the developer's tickets as one set per priority, from CRITICAL
+     *         down, each by creation date, then id
+     */
+    public List<NavigableSet<Ticket>> assignedTo(final String assignee) {
+        EnumMap<BusinessPriority, NavigableSet<Ticket>> buckets =
+                byAssignee.getOrDefault(assignee, new EnumMap<>(BusinessPriority.class));
+        List<NavigableSet<Ticket>> out = new ArrayList<>();
+        BusinessPriority[] priorities = BusinessPriority.values();
+        for (int i = priorities.length - 1; i >= 0; i--) {
+            NavigableSet<Ticket> bucket = buckets.get(priorities[i]);
+            out.add(bucket == null ? Collections.emptyNavigableSet()
+                    : Collections.unmodifiableNavigableSet(bucket));
+        }
+        return out;
+    }
+
+    /**
+     * Forgets every ticket.
+     */
+    public void clear() {
+        byCreation.clear();
+        byReporter.clear();
+        byAssignee.clear();
+    }
+
+    private NavigableSet<Ticket> bucket(final String assignee, final BusinessPriority priority) {
+        return byAssignee.computeIfAbsent(assignee, k -> new EnumMap<>(BusinessPriority.class))
+                .computeIfAbsent(priority, k -> new TreeSet<>(BY_CREATION));
+    }
+}
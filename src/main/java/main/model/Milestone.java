@@ -3,42 +3,67 @@ package main.model;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import lombok.Getter;
-import lombok.Setter;
 import main.core.SystemState;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Predicate;
 
 public final class Milestone {
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
+    private final int milestoneId;
     private final String name;
     private final List<String> blockingFor;
     private final String dueDate;   // "YYYY-MM-DD"
+    private final LocalDate due;
     private final String createdAt; // timestamp of createMilestone
     private String completedAt = "";
     private final List<Integer> tickets;
     private final List<String> assignedDevs;
     private final String createdBy;
 
-    public Milestone(final String name,
+    // Repartition, kept up to date by ticketReassigned: the sorted tickets of
+    // every developer, the rows of assignedDevs each developer occupies, and
+    // the rows ordered by load, then by position.
+    private final Map<String, SortedSet<Integer>> assignedByDev = new HashMap<>();
+    private final Map<String, List<Integer>> rowsByDev = new HashMap<>();
+    private final TreeSet<Integer> repartitionOrder = new TreeSet<>(
+            Comparator.comparingInt(this::rowLoad).thenComparingInt(row -> row));
+
+    public Milestone(final int id,
+                     final String name,
                      final List<String> blockingFor,
                      final String dueDate,
                      final String createdAt,
                      final List<Integer> tickets,
                      final List<String> assignedDevs,
                      final String createdBy) {
+        this.milestoneId = id;
         this.name = name;
         this.blockingFor = new ArrayList<>(blockingFor);
         this.dueDate = dueDate;
+        this.due = LocalDate.parse(dueDate);
         this.createdAt = createdAt;
         this.tickets = new ArrayList<>(tickets);
         this.assignedDevs = new ArrayList<>(assignedDevs);
         this.createdBy = createdBy;
+        for (int row = 0; row < this.assignedDevs.size(); row++) {
+            rowsByDev.computeIfAbsent(this.assignedDevs.get(row), k -> new ArrayList<>()).add(row);
+            repartitionOrder.add(row);
+        }
+    }
+
+    public int getId() {
+        return milestoneId;
     }
 
     public String getName() {
@@ -49,6 +74,10 @@ public final class Milestone {
         return dueDate;
     }
 
+    public LocalDate getDue() {
+        return due;
+    }
+
     public String getCreatedBy() {
         return createdBy;
     }
@@ -82,13 +111,12 @@ public final class Milestone {
      * lists this milestone in its "blockingFor".
      * Example from ref: Release 1.0 blockingFor includes
      * UI-Overhaul, and Release 1.0 is ACTIVE => UI-Overhaul isBlocked true.
+     * Only the direct blockers from the dependency graph are looked at.
      */
     public boolean isBlocked(final SystemState state) {
-        for (Milestone other : state.getAllMilestones()) {
-            if (other == this) {
-                continue;
-            }
-            if (other.isActive(state) && other.blockingFor.contains(this.name)) {
+        for (String blocker : state.getMilestoneGraph().blockersOf(name)) {
+            Milestone other = state.getMilestone(blocker);
+            if (other != null && other != this && other.isActive(state)) {
                 return true;
             }
         }
@@ -114,12 +142,28 @@ public final class Milestone {
         if (!isActive(state)) {
 
             completedAt = nowIso;
+            version++;
 
         }
 
     }
 
 
+    /**
+     * Fixes the completion date of a milestone whose completion was never
+     * captured, using the first time it is viewed. Rendering only reads
+     * completedAt, so this must run (under the writer lock) before a view.
+     *
+     * @param state  the state owning the milestone's tickets
+     * @param nowIso timestamp of the view
+     */
+    public void settleCompletion(final SystemState state, final String nowIso) {
+        if (completedAt.isEmpty() && !isActive(state)) {
+            completedAt = nowIso;
+            version++;
+        }
+    }
+
     private static int inclusiveDaysBetween(final LocalDate from, final LocalDate to) {
 
         long diff = ChronoUnit.DAYS.between(from, to);
@@ -130,7 +174,6 @@ public final class Milestone {
 
 
     private int daysUntilDue(final LocalDate referenceDate) {
-        LocalDate due = LocalDate.parse(dueDate);
         if (referenceDate.isAfter(due)) {
             return 0;
         }
@@ -139,8 +182,6 @@ public final class Milestone {
 
     private int overdueBy(final LocalDate referenceDate) {
 
-        LocalDate due = LocalDate.parse(dueDate);
-
         if (!referenceDate.isAfter(due)) {
             return 0;
         }
@@ -179,151 +220,195 @@ public final class Milestone {
         return Math.round(frac * 100.0) / 100.0;        // 2 decimals
     }
 
-    public ObjectNode toOutputJson(final SystemState state, final String timestamp) {
-        LocalDate now = LocalDate.parse(timestamp);
-
-        ObjectNode n = MAPPER.createObjectNode();
-
-        // Field order matches ref output
-        n.put("name", name);
-
-        ArrayNode bf = n.putArray("blockingFor");
-        for (String s : blockingFor) {
-            bf.add(s);
+    /**
+     * Moves a ticket of this milestone from one developer's repartition row
+     * to another's. Called when the ticket's assignee changes and, with an
+     * empty {@code from}, for tickets already assigned at creation.
+     *
+     * @param ticketId the ticket
+     * @param from     the previous assignee, empty if none
+     * @param to       the new assignee, empty if none
+     */
+    public void ticketReassigned(final int ticketId, final String from, final String to) {
+        if (!tickets.contains(ticketId)) {
+            return; // ticket of a previous milestone with the same name
         }
-
-        n.put("dueDate", dueDate);
-        n.put("createdAt", createdAt);
-
-        ArrayNode tArr = n.putArray("tickets");
-        for (int id : tickets) {
-            tArr.add(id);
+        if (!from.isEmpty()) {
+            updateAssigned(from, ticketId, false);
         }
-
-        ArrayNode devArr = n.putArray("assignedDevs");
-        for (String d : assignedDevs) {
-            devArr.add(d);
+        if (!to.isEmpty()) {
+            updateAssigned(to, ticketId, true);
         }
+    }
 
-        n.put("createdBy", createdBy);
+    private void updateAssigned(final String dev, final int ticketId, final boolean add) {
+        List<Integer> rows = rowsByDev.getOrDefault(dev, Collections.emptyList());
+        // rows are ordered by load, so they must leave the set while it changes
+        repartitionOrder.removeAll(rows);
+        SortedSet<Integer> assigned = assignedByDev.computeIfAbsent(dev, k -> new TreeSet<>());
+        if (add) {
+            assigned.add(ticketId);
+        } else {
+            assigned.remove(ticketId);
+        }
+        repartitionOrder.addAll(rows);
+    }
 
-        boolean activeNow = isActive(state);
-        boolean completed = !activeNow;
+    private int rowLoad(final int row) {
+        return assignedTicketsOf(assignedDevs.get(row)).size();
+    }
 
-        String status = completed ? "COMPLETED" : "ACTIVE";
-        n.put("status", status);
+    private SortedSet<Integer> assignedTicketsOf(final String dev) {
+        SortedSet<Integer> assigned = assignedByDev.get(dev);
+        return assigned == null ? Collections.emptySortedSet() : assigned;
+    }
 
-        n.put("isBlocked", isBlocked(state));
+    /**
+     * Drops the cached view. Called by the state whenever something the view
+     * is computed from changes: the status or assignee of one of the
+     * milestone's tickets, or the activity or set of its blockers.
+     */
+    public void invalidate() {
+        version++;
+    }
 
-        LocalDate referenceDate = now;
+    /**
+     * Renders the milestone as seen at {@code timestamp}. The node is cached
+     * and shared between views until {@link #invalidate()} is called or the
+     * reference date changes, so callers must not modify it.
+     *
+     * @param state     the state owning the milestone's tickets
+     * @param timestamp timestamp of the view
+     * @return the milestone view
+     */
+    public ObjectNode toOutputJson(final SystemState state, final String timestamp) {
+        Rendered cached = rendered;
+        if (isCurrent(cached, timestamp)) {
+            return cached.node;
+        }
+        boolean completed = !isActive(state);
+        ObjectNode node = render(state, timestamp, field -> true);
+        // a completed milestone is seen from its completion date, not from the view date
+        String viewDate = completed && !completedAt.isEmpty() ? null : timestamp;
+        rendered = new Rendered(version, viewDate, node);
+        return node;
+    }
 
-        if (completed) {
+    /**
+     * Renders only some fields of the milestone; the others, e.g. the
+     * repartition or the open and closed ticket lists, are not computed.
+     * Partial views are not cached.
+     *
+     * @param state     the state owning the milestone's tickets
+     * @param timestamp timestamp of the view
+     * @param include   the fields to render
+     * @return the partial milestone view
+     */
+    public ObjectNode toOutputJson(final SystemState state, final String timestamp,
+                                  final Predicate<String> include) {
+        return render(state, timestamp, include);
+    }
 
-            if (completedAt.isEmpty()) {
+    /**
+     * @param timestamp timestamp of a view
+     * @return whether {@link #toOutputJson(SystemState, String)} would be
+     *         served from the cache
+     */
+    public boolean hasCachedView(final String timestamp) {
+        return isCurrent(rendered, timestamp);
+    }
 
-                // Fallback: if somehow not captured earlier, treat the view time as completion time
+    private boolean isCurrent(final Rendered cached, final String timestamp) {
+        return cached != null && cached.version == version
+                && (cached.viewDate == null || cached.viewDate.equals(timestamp));
+    }
 
-                completedAt = timestamp;
+    private ObjectNode render(final SystemState state, final String timestamp,
+                              final Predicate<String> include) {
+        ObjectNode n = MAPPER.createObjectNode();
 
+        // Field order matches ref output
+        if (include.test("name")) {
+            n.put("name", name);
+        }
+        if (include.test("blockingFor")) {
+            ArrayNode bf = n.putArray("blockingFor");
+            for (String s : blockingFor) {
+                bf.add(s);
             }
-
-            referenceDate = LocalDate.parse(completedAt);
-
         }
-
-
-        n.put("daysUntilDue", daysUntilDue(referenceDate));
-
-        n.put("overdueBy", overdueBy(referenceDate));
-        List<Integer> open = openTickets(state);
-        List<Integer> closed = closedTickets(state);
-
-        ArrayNode openArr = n.putArray("openTickets");
-        for (int id : open) {
-            openArr.add(id);
+        if (include.test("dueDate")) {
+            n.put("dueDate", dueDate);
         }
-
-        ArrayNode closedArr = n.putArray("closedTickets");
-        for (int id : closed) {
-            closedArr.add(id);
+        if (include.test("createdAt")) {
+            n.put("createdAt", createdAt);
         }
-
-        n.put("completionPercentage", completionPercentage(state));
-
-        // Repartition: sort developers by number of assigned tickets ASC (stable by original order)
-
-        final class RepRow {
-            @Getter @Setter
-            private final int idx;
-            @Getter @Setter
-            private final String dev;
-            @Getter @Setter
-            private final List<Integer> assigned;
-
-            RepRow(final int idx, final String dev, final List<Integer> assigned) {
-
-                this.idx = idx;
-
-                this.dev = dev;
-
-                this.assigned = assigned;
-
+        if (include.test("tickets")) {
+            ArrayNode tArr = n.putArray("tickets");
+            for (int id : tickets) {
+                tArr.add(id);
             }
-
         }
-
-
-        List<RepRow> repRows = new ArrayList<>();
-
-        for (int i = 0; i < assignedDevs.size(); i++) {
-
-            String dev = assignedDevs.get(i);
-
-            List<Integer> assigned = new ArrayList<>();
-            for (int tid : tickets) {
-                Ticket tt = state.findTicket(tid);
-                if (tt != null && dev.equals(tt.getAssignedTo())) {
-                    assigned.add(tid);
-                }
+        if (include.test("assignedDevs")) {
+            ArrayNode devArr = n.putArray("assignedDevs");
+            for (String d : assignedDevs) {
+                devArr.add(d);
             }
-            Collections.sort(assigned);
-
-            repRows.add(new RepRow(i, dev, assigned));
-
+        }
+        if (include.test("createdBy")) {
+            n.put("createdBy", createdBy);
         }
 
+        boolean needsActivity = include.test("status")
+                || include.test("daysUntilDue") || include.test("overdueBy");
+        boolean completed = needsActivity && !isActive(state);
+        if (include.test("status")) {
+            n.put("status", completed ? "COMPLETED" : "ACTIVE");
+        }
+        if (include.test("isBlocked")) {
+            n.put("isBlocked", isBlocked(state));
+        }
 
-        repRows.sort((a, b) -> {
-
-            int c = Integer.compare(a.assigned.size(), b.assigned.size());
+        // completedAt is settled by settleCompletion before rendering;
+        // the view time is only a fallback for callers that skipped it
+        LocalDate referenceDate = LocalDate.parse(
+                completed && !completedAt.isEmpty() ? completedAt : timestamp);
+        if (include.test("daysUntilDue")) {
+            n.put("daysUntilDue", daysUntilDue(referenceDate));
+        }
+        if (include.test("overdueBy")) {
+            n.put("overdueBy", overdueBy(referenceDate));
+        }
 
-            if (c != 0) {
-                return c;
+        if (include.test("openTickets")) {
+            ArrayNode openArr = n.putArray("openTickets");
+            for (int id : openTickets(state)) {
+                openArr.add(id);
             }
-
-            return Integer.compare(a.idx, b.idx);
-
-        });
-
-
-        ArrayNode rep = n.putArray("repartition");
-
-        for (RepRow rr : repRows) {
-
-            ObjectNode r = MAPPER.createObjectNode();
-
-            r.put("developer", rr.dev);
-
-            ArrayNode assigned = r.putArray("assignedTickets");
-
-            for (int tid : rr.assigned) {
-
-                assigned.add(tid);
-
+        }
+        if (include.test("closedTickets")) {
+            ArrayNode closedArr = n.putArray("closedTickets");
+            for (int id : closedTickets(state)) {
+                closedArr.add(id);
+            }
+        }
+        if (include.test("completionPercentage")) {
+            n.put("completionPercentage", completionPercentage(state));
+        }
+        if (include.test("repartition")) {
+            // Repartition: developers by number of assigned tickets ASC, then by position
+            ArrayNode rep = n.putArray("repartition");
+            for (int row : repartitionOrder) {
+                String dev = assignedDevs.get(row);
+                ObjectNode r = MAPPER.createObjectNode();
+                r.put("developer", dev);
+                ArrayNode assigned = r.putArray("assignedTickets");
+                for (int tid : assignedTicketsOf(dev)) {
+                    assigned.add(tid);
+                }
+                rep.add(r);
             }
-            rep.add(r);
         }
-
         return n;
     }
     public java.util.List<Integer> getTickets() {
@@ -331,6 +416,24 @@ public final class Milestone {
     }
     private boolean wasEverBlocked = false;
 
+    // Render cache; only written under the state's write lock or by readers
+    // racing to store the same value, hence volatile rather than locked.
+    private int version = 0;
+    private volatile Rendered rendered;
+
+    /** A rendered view and what it was computed from. */
+    private static final class Rendered {
+        private final int version;
+        private final String viewDate; // null when the view does not depend on it
+        private final ObjectNode node;
+
+        Rendered(final int version, final String viewDate, final ObjectNode node) {
+            this.version = version;
+            this.viewDate = viewDate;
+            this.node = node;
+        }
+    }
+
     public void updateBlockedHistory(final SystemState state) {
         if (isBlocked(state)) {
             wasEverBlocked = true;
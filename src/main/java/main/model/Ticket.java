@@ -8,6 +8,7 @@ import lombok.Setter;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
 
 public final class Ticket {
     private static final ObjectMapper MAPPER = new ObjectMapper();
@@ -28,6 +29,7 @@ public final class Ticket {
     private String solvedAt = "";
     private String assignedTo = "";
     private String reportedBy = "";
+    private TicketListener listener;
 
     // --- Added for Test 3 priority escalation ---
     private String severity = "";
@@ -71,8 +73,15 @@ public final class Ticket {
         return businessPriority;
     }
 
+    /**
+     * @param bp the new priority; the listener hears of actual changes
+     */
     public void setBusinessPriority(final BusinessPriority bp) {
+        BusinessPriority from = this.businessPriority;
         this.businessPriority = bp;
+        if (listener != null && from != bp) {
+            listener.priorityChanged(this, from);
+        }
     }
 
     public String getSeverity() {
@@ -91,12 +100,34 @@ public final class Ticket {
         this.createdAt = createdAt;
     }
 
+    /**
+     * @param status the new status; the listener hears of actual changes
+     */
     public void setStatus(final TicketStatus status) {
+        TicketStatus from = this.status;
         this.status = status;
+        if (listener != null && from != status) {
+            listener.statusChanged(this, from);
+        }
     }
 
+    /**
+     * @param assignedTo the new assignee, empty to unassign; the listener
+     *                   hears of actual changes
+     */
     public void setAssignedTo(final String assignedTo) {
+        String from = this.assignedTo;
         this.assignedTo = assignedTo;
+        if (listener != null && !from.equals(assignedTo)) {
+            listener.assigneeChanged(this, from);
+        }
+    }
+
+    /**
+     * @param listener notified of status and assignee changes from now on
+     */
+    public void setListener(final TicketListener listener) {
+        this.listener = listener;
     }
 
     public List<Comment> getComments() {
@@ -107,9 +138,14 @@ public final class Ticket {
         comments.add(c);
     }
 
-
+    /**
+     * @param a the action to record; the listener hears of it
+     */
     public void addAction(final TicketAction a) {
         actions.add(a);
+        if (listener != null) {
+            listener.actionAdded(this, a);
+        }
     }
 
     public List<TicketAction> getActions() {
@@ -127,44 +163,68 @@ public final class Ticket {
     }
 
     public ObjectNode toOutputJson() {
+        return toOutputJson(field -> true);
+    }
+
+    /**
+     * @param include the fields to render; the others are not computed
+     * @return the ticket as listed by viewTickets
+     */
+    public ObjectNode toOutputJson(final Predicate<String> include) {
         ObjectNode n = MAPPER.createObjectNode();
-        n.put("id", id);
-        n.put("type", type.name());
-        n.put("title", title);
-        n.put("businessPriority", businessPriority.name());
-        n.put("status", status.name());
-
-        n.put("createdAt", createdAt);
-        n.put("assignedAt", assignedAt);
-        n.put("solvedAt", solvedAt);
-        n.put("assignedTo", assignedTo);
-        n.put("reportedBy", reportedBy);
-
-        ArrayNode cArr = n.putArray("comments");
-        for (Comment c : comments) {
-            cArr.add(c.toJson());
-        }
+        putSummary(n, include);
+        putIf(n, include, "assignedAt", assignedAt);
+        putIf(n, include, "solvedAt", solvedAt);
+        putIf(n, include, "assignedTo", assignedTo);
+        putIf(n, include, "reportedBy", reportedBy);
+        putComments(n, include);
         return n;
     }
 
     public ObjectNode toAssignedTicketJson() {
+        return toAssignedTicketJson(field -> true);
+    }
+
+    /**
+     * @param include the fields to render; the others are not computed
+     * @return the ticket as listed by viewAssignedTickets
+     */
+    public ObjectNode toAssignedTicketJson(final Predicate<String> include) {
         ObjectNode n = MAPPER.createObjectNode();
-        n.put("id", id);
-        n.put("type", type.name());
-        n.put("title", title);
-        n.put("businessPriority", businessPriority.name());
-        n.put("status", status.name());
-        n.put("createdAt", createdAt);
-        n.put("assignedAt", assignedAt);
-        n.put("reportedBy", reportedBy);
-
-        ArrayNode cArr = n.putArray("comments");
-        for (Comment c : comments) {
-            cArr.add(c.toJson());
-        }
+        putSummary(n, include);
+        putIf(n, include, "assignedAt", assignedAt);
+        putIf(n, include, "reportedBy", reportedBy);
+        putComments(n, include);
         return n;
     }
 
+    private void putSummary(final ObjectNode n, final Predicate<String> include) {
+        if (include.test("id")) {
+            n.put("id", id);
+        }
+        putIf(n, include, "type", type.name());
+        putIf(n, include, "title", title);
+        putIf(n, include, "businessPriority", businessPriority.name());
+        putIf(n, include, "status", status.name());
+        putIf(n, include, "createdAt", createdAt);
+    }
+
+    private static void putIf(final ObjectNode n, final Predicate<String> include,
+                              final String field, final String value) {
+        if (include.test(field)) {
+            n.put(field, value);
+        }
+    }
+
+    private void putComments(final ObjectNode n, final Predicate<String> include) {
+        if (include.test("comments")) {
+            ArrayNode cArr = n.putArray("comments");
+            for (Comment c : comments) {
+                cArr.add(c.toJson());
+            }
+        }
+    }
+
     public boolean undoLastCommentBy(final String author) {
         for (int i = comments.size() - 1; i >= 0; i--) {
             if (author.equals(comments.get(i).getAuthor())) {
@@ -175,41 +235,34 @@ public final class Ticket {
         return false;
     }
     public ObjectNode toHistoryJson() {
-        ObjectNode n = MAPPER.createObjectNode();
-        n.put("id", id);
-        n.put("title", title);
-        n.put("status", status.name());
+        return toHistoryJson(field -> true);
+    }
 
-        ArrayNode aArr = n.putArray("actions");
-        for (TicketAction a : actions) {
-            aArr.add(a.toJson());
+    /**
+     * @param include the fields to render; the others are not computed
+     * @return the ticket as listed by viewTicketHistory
+     */
+    public ObjectNode toHistoryJson(final Predicate<String> include) {
+        ObjectNode n = MAPPER.createObjectNode();
+        if (include.test("id")) {
+            n.put("id", id);
         }
+        putIf(n, include, "title", title);
+        putIf(n, include, "status", status.name());
 
-        ArrayNode cArr = n.putArray("comments");
-        for (Comment c : comments) {
-            cArr.add(c.toJson());
+        if (include.test("actions")) {
+            ArrayNode aArr = n.putArray("actions");
+            for (TicketAction a : actions) {
+                aArr.add(a.toJson());
+            }
         }
-
+        putComments(n, include);
         return n;
     }
-    private java.util.List<String> tempMatchingWords = java.util.Collections.emptyList();
-
     public String getTitle() {
         return title;
     }
 
-    public void setTempMatchingWords(final java.util.List<String> words) {
-        this.tempMatchingWords = (words == null) ? java.util.Collections.emptyList() : new java
-                .util.ArrayList<>(words);
-    }
-
-    public java.util.List<String> getTempMatchingWords() {
-        return tempMatchingWords;
-    }
-
-    public void clearTempMatchingWords() {
-        this.tempMatchingWords = java.util.Collections.emptyList();
-    }
     private String frequency = "";        // BUG
     private String businessValue = "";    // FEATURE_REQUEST / UI_FEEDBACK
     private String customerDemand = "";   // FEATURE_REQUEST
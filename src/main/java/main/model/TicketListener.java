@@ -0,0 +1,32 @@
+package main.model;
+
+/**
+ * Observer of the ticket fields that derived state (caches, indexes, sorted
+ * views) is computed from. Callbacks run after the field has changed, and only when
+ * the new value differs from the old one.
+ */
+public interface TicketListener {
+    /**
+     * @param ticket the ticket whose status changed
+     * @param from   the previous status
+     */
+    void statusChanged(Ticket ticket, TicketStatus from);
+
+    /**
+     * @param ticket the ticket whose assignee changed
+     * @param from   the previous assignee, empty if it was unassigned
+     */
+    void assigneeChanged(Ticket ticket, String from);
+
+    /**
+     * @param ticket the ticket whose business priority changed
+     * @param from   the previous priority
+     */
+    void priorityChanged(Ticket ticket, BusinessPriority from);
+
+    /**
+     * @param ticket the ticket whose history grew
+     * @param action the action just recorded
+     */
+    void actionAdded(Ticket ticket, TicketAction action);
+}
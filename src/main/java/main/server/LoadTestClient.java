@@ -0,0 +1,108 @@
+package main.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import main.InputFormat;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Local load generator for {@link QueryServer}. Sends the commands of an
+ * input file over one connection, one request in flight at a time, and
+ * reports throughput and latency percentiles.
+ */
+public final class LoadTestClient {
+    private LoadTestClient() {
+    }
+
+    private static final double NANOS_PER_MICRO = 1_000.0;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final double P50 = 0.50;
+    private static final double P99 = 0.99;
+    private static final int COMMANDS_ARG = 2;
+    private static final int ITERATIONS_ARG = 3;
+
+    /**
+     * Usage: {@code LoadTestClient (--port <n> | --unix <path>) <commandsFile> [iterations]}.
+     *
+     * @param args command line arguments
+     * @throws IOException if the server cannot be reached or the file read
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length <= COMMANDS_ARG) {
+            System.out.println("usage: LoadTestClient (--port <n> | --unix <path>)"
+                    + " <commandsFile> [iterations]");
+            return;
+        }
+        SocketAddress address = "--unix".equals(args[0])
+                ? UnixDomainSocketAddress.of(Path.of(args[1]))
+                : new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                        Integer.parseInt(args[1]));
+        int iterations = args.length > ITERATIONS_ARG
+                ? Integer.parseInt(args[ITERATIONS_ARG]) : 1;
+
+        ObjectMapper mapper = new ObjectMapper();
+        List<byte[]> requests = new ArrayList<>();
+        for (JsonNode cmdNode : InputFormat.read(new File(args[COMMANDS_ARG]))) {
+            requests.add((mapper.writeValueAsString(cmdNode) + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+
+        long[] latencies = new long[requests.size() * iterations];
+        int sent = 0;
+        long start = System.nanoTime();
+        try (SocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                : SocketChannel.open()) {
+            channel.connect(address);
+            OutputStream out = Channels.newOutputStream(channel);
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    Channels.newInputStream(channel), StandardCharsets.UTF_8));
+
+            for (int i = 0; i < iterations; i++) {
+                for (byte[] request : requests) {
+                    long t0 = System.nanoTime();
+                    out.write(request);
+                    out.flush();
+                    if (in.readLine() == null) {
+                        throw new IOException("server closed the connection");
+                    }
+                    latencies[sent++] = System.nanoTime() - t0;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies, 0, sent);
+        System.out.printf("%d requests in %.1f ms: %.0f req/s, p50 %.1f us, p99 %.1f us%n",
+                sent, elapsed / NANOS_PER_MILLI,
+                sent * NANOS_PER_SECOND / elapsed,
+                percentile(latencies, sent, P50) / NANOS_PER_MICRO,
+                percentile(latencies, sent, P99) / NANOS_PER_MICRO);
+    }
+
+    private static long percentile(final long[] sorted, final int count, final double p) {
+        if (count == 0) {
+            return 0;
+        }
+        int idx = (int) Math.min(count - 1, Math.round(p * (count - 1)));
+        return sorted[idx];
+    }
+}
@@ -0,0 +1,350 @@
+package main.server;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import main.App;
+import main.InputFormat;
+import main.core.CommandFacade;
+import main.core.SystemState;
+import main.model.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Long-running query server that keeps one project's state in memory.
+ *
+ * <p>Clients connect over a loopback TCP port or a Unix domain socket and
+ * send newline-delimited JSON commands, in the same shape as the entries of
+ * an input file. Every line gets exactly one line back: the command output
+ * as compact JSON, or {@code null} when the command has no output.
+ *
+ * <p>A single selector thread accepts connections and executes commands, so
+ * commands from all clients are applied one at a time in arrival order.
+ *
+ * <p>Each connection is bounded: a request line longer than
+ * {@value #MAX_LINE_LENGTH} bytes is discarded and answered with an error,
+ * and a client whose unsent responses exceed {@value #MAX_PENDING_BYTES}
+ * bytes is not read from until it has drained them.
+ */
+public final class QueryServer implements Closeable {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] NO_OUTPUT = "null\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LINE_TOO_LONG =
+            "{\"error\":\"Command line too long.\"}\n".getBytes(StandardCharsets.UTF_8);
+    /** Longest request line a connection buffers, in bytes. */
+    static final int MAX_LINE_LENGTH = 1 << 20;
+    /** Unsent response bytes above which a connection stops being read. */
+    static final int MAX_PENDING_BYTES = 4 << 20;
+    private static final int FILE_TYPE_MASK = 0170000;
+    private static final int SOCKET_FILE_TYPE = 0140000;
+
+    private final CommandFacade facade;
+    private final SystemState state;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    /**
+     * Opens the server socket. Commands are only processed once
+     * {@link #serve()} is called.
+     *
+     * @param state   the state the commands are applied to
+     * @param address a loopback {@link InetSocketAddress} or a
+     *                {@link UnixDomainSocketAddress}
+     * @throws IOException if the socket cannot be bound
+     */
+    public QueryServer(final SystemState state, final SocketAddress address) throws IOException {
+        this.state = state;
+        this.facade = new CommandFacade(state);
+        this.selector = Selector.open();
+        this.server = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open();
+        server.bind(address);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * @return the bound address (useful when binding to port 0)
+     * @throws IOException if the socket is closed
+     */
+    public SocketAddress getAddress() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    /**
+     * Serves clients until {@link #close()} is called from another thread.
+     *
+     * @throws IOException if the selector fails
+     */
+    public void serve() throws IOException {
+        while (server.isOpen()) {
+            selector.select();
+            if (!selector.isOpen()) {
+                break;
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                try {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    if (key.isReadable()) {
+                        read(key);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        write(key);
+                    }
+                } catch (IOException e) {
+                    // A broken client must not take the server down with it.
+                    key.cancel();
+                    key.channel().close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the commands of a history file, discarding their output, until
+     * the file ends or a command stops the project. The file may be in any
+     * {@link InputFormat} and is streamed, one command at a time.
+     *
+     * @param file a command file
+     * @throws IOException if the file cannot be read
+     */
+    public void replay(final File file) throws IOException {
+        try (JsonParser p = InputFormat.open(file)) {
+            if (p.nextToken() == JsonToken.START_ARRAY) {
+                while (p.nextToken() == JsonToken.START_OBJECT && !state.isStopped()) {
+                    facade.execute(MAPPER.readTree(p));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        selector.close();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel client = server.accept();
+        if (client == null) {
+            return;
+        }
+        client.configureBlocking(false);
+        client.register(selector, SelectionKey.OP_READ, new Connection());
+    }
+
+    private void read(final SelectionKey key) throws IOException {
+        SocketChannel client = (SocketChannel) key.channel();
+        Connection conn = (Connection) key.attachment();
+
+        readBuffer.clear();
+        int n = client.read(readBuffer);
+        if (n < 0) {
+            key.cancel();
+            client.close();
+            return;
+        }
+        readBuffer.flip();
+        consume(key, conn, readBuffer);
+    }
+
+    /**
+     * Executes the complete lines of {@code bytes}. Once the connection's
+     * backlog is full, the rest is set aside until the client has read its
+     * responses.
+     */
+    private void consume(final SelectionKey key, final Connection conn, final ByteBuffer bytes) {
+        while (bytes.hasRemaining()) {
+            if (conn.pendingBytes >= MAX_PENDING_BYTES) {
+                conn.unread = ByteBuffer.allocate(bytes.remaining()).put(bytes).flip();
+                break;
+            }
+            byte b = bytes.get();
+            if (b != '\n') {
+                if (conn.discarding) {
+                    continue;
+                }
+                if (conn.line.size() >= MAX_LINE_LENGTH) {
+                    conn.discarding = true;
+                    conn.line.reset();
+                    continue;
+                }
+                conn.line.write(b);
+                continue;
+            }
+            if (conn.discarding) {
+                conn.discarding = false;
+                conn.respond(LINE_TOO_LONG);
+            } else {
+                conn.respond(handleLine(conn.line.toByteArray()));
+            }
+            conn.line.reset();
+        }
+        updateInterest(key, conn);
+    }
+
+    private void write(final SelectionKey key) throws IOException {
+        SocketChannel client = (SocketChannel) key.channel();
+        Connection conn = (Connection) key.attachment();
+        while (!conn.pending.isEmpty()) {
+            ByteBuffer head = conn.pending.peek();
+            client.write(head);
+            if (head.hasRemaining()) {
+                break; // socket buffer full, wait for the next OP_WRITE
+            }
+            conn.pending.poll();
+            conn.pendingBytes -= head.limit();
+        }
+        if (conn.unread != null && conn.pendingBytes < MAX_PENDING_BYTES) {
+            ByteBuffer rest = conn.unread;
+            conn.unread = null;
+            consume(key, conn, rest);
+            return;
+        }
+        updateInterest(key, conn);
+    }
+
+    private static void updateInterest(final SelectionKey key, final Connection conn) {
+        int ops = 0;
+        if (conn.unread == null && conn.pendingBytes < MAX_PENDING_BYTES) {
+            ops |= SelectionKey.OP_READ;
+        }
+        if (!conn.pending.isEmpty()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        key.interestOps(ops);
+    }
+
+    private byte[] handleLine(final byte[] line) {
+        if (line.length == 0 || state.isStopped()) {
+            return NO_OUTPUT;
+        }
+        try {
+            JsonNode cmdNode = MAPPER.readTree(line);
+            ObjectNode out = facade.execute(cmdNode);
+            if (out == null) {
+                return NO_OUTPUT;
+            }
+            return (MAPPER.writeValueAsString(out) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (IOException | RuntimeException e) {
+            ObjectNode err = MAPPER.createObjectNode();
+            err.put("error", "Malformed command: " + e.getMessage());
+            return (err.toString() + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Per-client buffers: the partial request line, the unsent responses and
+     * the received bytes set aside while the responses are full.
+     */
+    private static final class Connection {
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();
+        private long pendingBytes;
+        private ByteBuffer unread;
+        // the current line is over MAX_LINE_LENGTH and is skipped up to its end
+        private boolean discarding;
+
+        void respond(final byte[] response) {
+            pending.add(ByteBuffer.wrap(response));
+            pendingBytes += response.length;
+        }
+    }
+
+    /**
+     * Starts a server. Usage:
+     * {@code QueryServer (--port <n> | --unix <path>) [--replay <inputFile>]}.
+     * The optional replay file is executed first to warm the state up.
+     *
+     * @param args command line arguments
+     * @throws IOException if the users database or the replay file cannot be read
+     */
+    public static void main(final String[] args) throws IOException {
+        SocketAddress address = null;
+        String replay = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port":
+                    address = new InetSocketAddress(java.net.InetAddress.getLoopbackAddress(),
+                            Integer.parseInt(args[i + 1]));
+                    break;
+                case "--unix":
+                    Path path = Path.of(args[i + 1]);
+                    if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+                        if (!isSocketFile(path)) {
+                            System.out.println("not a socket file: " + path);
+                            return;
+                        }
+                        Files.delete(path); // left over by a previous server
+                    }
+                    address = UnixDomainSocketAddress.of(path);
+                    break;
+                case "--replay":
+                    replay = args[i + 1];
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (address == null) {
+            System.out.println("usage: QueryServer (--port <n> | --unix <path>)"
+                    + " [--replay <inputFile>]");
+            return;
+        }
+
+        SystemState state = new SystemState();
+        for (JsonNode userNode : App.loadUsers()) {
+            state.addUser(User.fromJson(userNode));
+        }
+
+        try (QueryServer qs = new QueryServer(state, address)) {
+            if (replay != null) {
+                qs.replay(new File(replay));
+            }
+            System.out.println("serving on " + qs.getAddress());
+            qs.serve();
+        }
+    }
+
+    private static boolean isSocketFile(final Path path) {
+        try {
+            int mode = (Integer) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+            return (mode & FILE_TYPE_MASK) == SOCKET_FILE_TYPE;
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+}
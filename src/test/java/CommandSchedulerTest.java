@@ -0,0 +1,96 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import main.App;
+import main.core.CommandFacade;
+import main.core.CommandScheduler;
+import main.core.SystemState;
+import main.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CommandSchedulerTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static SystemState newState() throws IOException {
+        SystemState state = new SystemState();
+        for (JsonNode userNode : App.loadUsers()) {
+            state.addUser(User.fromJson(userNode));
+        }
+        return state;
+    }
+
+    private static JsonNode command(final String command, final String username) {
+        return MAPPER.createObjectNode()
+                .put("command", command)
+                .put("username", username)
+                .put("timestamp", "2025-10-01");
+    }
+
+    @Test
+    public void readOnlyCommandsOverlap() throws IOException {
+        List<JsonNode> commands = List.of(
+                command("reportTicket", "theodora_reporter"),
+                command("viewTickets", "gabriel_manager"),
+                command("viewMilestones", "cleopatra_manager"),
+                command("viewAssignedTickets", "marcus_fullstack"));
+        ((ObjectNode) commands.get(0)).set("params", MAPPER.createObjectNode()
+                .put("type", "FEATURE_REQUEST")
+                .put("title", "Export")
+                .put("businessPriority", "LOW")
+                .put("reportedBy", "theodora_reporter")
+                .put("businessValue", "M")
+                .put("customerDemand", "HIGH"));
+
+        List<ObjectNode> serial = new ArrayList<>();
+        SystemState serialState = newState();
+        CommandFacade serialFacade = new CommandFacade(serialState);
+        for (JsonNode cmdNode : commands) {
+            ObjectNode out = serialFacade.execute(cmdNode);
+            if (out != null) {
+                serial.add(out);
+            }
+        }
+
+        // The reportTicket is a barrier and the viewTickets right after it is
+        // forced to be one; the two reads after that only start once both are
+        // running, so they complete only if they are dispatched together.
+        CyclicBarrier together = new CyclicBarrier(2);
+        AtomicInteger overlapping = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Executor executor = task -> pool.execute(() -> {
+            try {
+                together.await(5, TimeUnit.SECONDS);
+                overlapping.incrementAndGet();
+            } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                // ran alone
+            }
+            task.run();
+        });
+
+        SystemState state = newState();
+        List<ObjectNode> outputs;
+        try {
+            outputs = new CommandScheduler(state, new CommandFacade(state), executor)
+                    .run(commands);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(overlapping.get()).isEqualTo(2);
+        assertThat(outputs).isEqualTo(serial);
+    }
+}
@@ -0,0 +1,32 @@
+import main.core.MilestoneGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MilestoneGraphTest {
+    private static final int CHAIN_LENGTH = 200_000;
+
+    @Test
+    public void longChainsDoNotOverflowTheStack() {
+        // m0 blocks m1, which blocks m2, and so on
+        MilestoneGraph graph = new MilestoneGraph();
+        for (int i = 0; i + 1 < CHAIN_LENGTH; i++) {
+            graph.setEdges("m" + i, List.of("m" + (i + 1)));
+        }
+        String last = "m" + (CHAIN_LENGTH - 1);
+
+        List<String> blockers = graph.transitiveBlockers(last);
+        assertThat(blockers).hasSize(CHAIN_LENGTH - 1);
+        assertThat(blockers.get(0)).isEqualTo("m0");
+
+        List<String> path = graph.criticalPath(last, name -> true);
+        assertThat(path).hasSize(CHAIN_LENGTH);
+        assertThat(path.get(0)).isEqualTo("m0");
+        assertThat(path.get(CHAIN_LENGTH - 1)).isEqualTo(last);
+
+        assertThat(graph.wouldCreateCycle("m0", List.of(last))).isNull();
+        assertThat(graph.wouldCreateCycle(last, List.of("m0"))).isEqualTo("m0");
+    }
+}
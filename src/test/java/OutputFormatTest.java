@@ -0,0 +1,57 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import main.App;
+import main.OutputFormat;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OutputFormatTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String INPUT = "input/in_06_test_comment.json";
+    private static final String REF = "ref/ref_06_test_comment.json";
+
+    @ParameterizedTest(name = "{0}")
+    @EnumSource(OutputFormat.class)
+    public void everyFormatDecodesToTheReference(final OutputFormat format) throws IOException {
+        String outputPath = "out/out_06_test_comment." + format.name().toLowerCase();
+        App.run(INPUT, outputPath, format);
+
+        JsonNode output = decode(new File(outputPath), format);
+        assertThat(output).isEqualTo(MAPPER.readTree(new File(REF)));
+    }
+
+    private static JsonNode decode(final File file, final OutputFormat format) throws IOException {
+        switch (format) {
+            case SMILE:
+                return new SmileMapper().readTree(file);
+            case CBOR:
+                return new CBORMapper().readTree(file);
+            case RECORDS:
+                ArrayNode outputs = MAPPER.createArrayNode();
+                try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+                    while (true) {
+                        int length;
+                        try {
+                            length = in.readInt();
+                        } catch (EOFException e) {
+                            return outputs;
+                        }
+                        outputs.add(MAPPER.readTree(in.readNBytes(length)));
+                    }
+                }
+            default:
+                return MAPPER.readTree(file);
+        }
+    }
+}
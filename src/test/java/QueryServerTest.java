@@ -0,0 +1,252 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import main.App;
+import main.InputConverter;
+import main.InputFormat;
+import main.core.CommandFacade;
+import main.core.SystemState;
+import main.model.Ticket;
+import main.model.User;
+import main.server.QueryServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Timeout(60)
+public class QueryServerTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    /** QueryServer.MAX_LINE_LENGTH. */
+    private static final int MAX_LINE_LENGTH = 1 << 20;
+    /** Tickets per page; a page response is about 20 KiB. */
+    private static final int PAGE = 100;
+    /** Enough page responses to go far past QueryServer.MAX_PENDING_BYTES (4 MiB). */
+    private static final int FLOOD_PAIRS = 3000;
+
+    private SystemState state;
+    private QueryServer server;
+    private Thread serving;
+    private Socket socket;
+    private OutputStream out;
+    private BufferedReader in;
+
+    @BeforeEach
+    public void start() throws IOException {
+        state = newState();
+        server = new QueryServer(state,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        serving = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                // closed by the test
+            }
+        });
+        serving.start();
+        socket = new Socket();
+        socket.connect(server.getAddress());
+        out = socket.getOutputStream();
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    public void stop() throws Exception {
+        socket.close();
+        server.close();
+        serving.join();
+    }
+
+    /** A command whose output names {@code username}, so responses can be matched. */
+    private static String request(final String username) {
+        return "{\"command\":\"viewTickets\",\"username\":\"" + username
+                + "\",\"timestamp\":\"2025-10-01\"}\n";
+    }
+
+    private void send(final String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void expectResponse(final String username) throws IOException {
+        JsonNode response = MAPPER.readTree(in.readLine());
+        assertThat(response.path("username").asText()).isEqualTo(username);
+    }
+
+    /** The next line answers a fresh request, so no extra line came before it. */
+    private void expectNothingElse() throws IOException {
+        send(request("sentinel"));
+        expectResponse("sentinel");
+    }
+
+    @Test
+    public void splitLineGetsOneResponse() throws Exception {
+        String line = request("split");
+        int third = line.length() / 3;
+        send(line.substring(0, third));
+        Thread.sleep(50);
+        send(line.substring(third, 2 * third));
+        Thread.sleep(50);
+        send(line.substring(2 * third));
+
+        expectResponse("split");
+        expectNothingElse();
+    }
+
+    @Test
+    public void severalLinesInOneWriteAreAnsweredInOrder() throws IOException {
+        send(request("first") + request("second") + "\n" + request("third"));
+
+        expectResponse("first");
+        expectResponse("second");
+        assertThat(in.readLine()).isEqualTo("null"); // the empty line
+        expectResponse("third");
+        expectNothingElse();
+    }
+
+    @Test
+    public void overLongLineIsRejectedAndTheNextLineServed() throws IOException {
+        char[] filler = new char[MAX_LINE_LENGTH + 10];
+        Arrays.fill(filler, 'x');
+        send(new String(filler) + "\n" + request("after"));
+
+        assertThat(MAPPER.readTree(in.readLine()).path("error").asText())
+                .isEqualTo("Command line too long.");
+        expectResponse("after");
+        expectNothingElse();
+    }
+
+    @Test
+    public void slowReaderIsThrottledThenFullyServed() throws Exception {
+        // every page below holds the same PAGE tickets, so each response has the same size
+        StringBuilder seed = new StringBuilder("{\"command\":\"importTickets\","
+                + "\"username\":\"gabriel_manager\",\"timestamp\":\"2025-10-01\",\"tickets\":[");
+        for (int i = 0; i < 2 * PAGE; i++) {
+            seed.append(i == 0 ? "" : ",").append(ticket("Seeded ticket " + i));
+        }
+        send(seed.append("]}\n").toString());
+        assertThat(MAPPER.readTree(in.readLine()).path("imported").asInt()).isEqualTo(2 * PAGE);
+
+        // each pair is a large page, starting after ticket i % PAGE, and a report
+        // whose only trace is the ticket it creates
+        Thread writer = new Thread(() -> {
+            try {
+                StringBuilder batch = new StringBuilder();
+                for (int i = 0; i < FLOOD_PAIRS; i++) {
+                    batch.append(page(i % PAGE)).append("{\"command\":\"reportTicket\","
+                            + "\"username\":\"theodora_reporter\",\"timestamp\":\"2025-10-01\","
+                            + "\"params\":").append(ticket("Flood ticket " + i)).append("}\n");
+                }
+                send(batch.toString());
+            } catch (IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        });
+        writer.start();
+
+        // Without reading, the server stops taking requests once its unsent
+        // responses pass the cap: the commands it has run stop well short of
+        // the whole flood.
+        int executed = -1;
+        while (executed != ticketCount()) {
+            executed = ticketCount();
+            Thread.sleep(1000);
+        }
+        assertThat(executed - 2 * PAGE).isLessThan(FLOOD_PAIRS / 2);
+
+        for (int i = 0; i < FLOOD_PAIRS; i++) {
+            JsonNode response = MAPPER.readTree(in.readLine());
+            assertThat(response.path("tickets").get(0).path("id").asInt()).isEqualTo(i % PAGE + 1);
+            assertThat(in.readLine()).isEqualTo("null");
+        }
+        writer.join();
+        assertThat(ticketCount()).isEqualTo(2 * PAGE + FLOOD_PAIRS);
+        expectNothingElse();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"input/in_28_test_smile_input.smile",
+            "input/in_29_test_cbor_input.cbor"})
+    public void binaryHistoryIsReplayed(final String history, @TempDir final Path dir)
+            throws IOException {
+        server.replay(new File(history));
+
+        // the same history, decoded as JSON text and applied directly
+        File json = dir.resolve("history.json").toFile();
+        InputConverter.convert(new File(history), json, InputFormat.JSON);
+        SystemState reference = newState();
+        CommandFacade facade = new CommandFacade(reference);
+        for (JsonNode cmdNode : MAPPER.readTree(json)) {
+            if (reference.isStopped()) {
+                break;
+            }
+            facade.execute(cmdNode);
+        }
+
+        // both histories end with lostInvestors, after which the server answers nothing
+        assertThat(reference.isStopped()).isTrue();
+        send(request("gabriel_manager"));
+        assertThat(in.readLine()).isEqualTo("null");
+        assertThat(ticketsOf(state)).isNotEmpty().isEqualTo(ticketsOf(reference));
+    }
+
+    private static List<JsonNode> ticketsOf(final SystemState s) {
+        Lock lock = s.readLock();
+        lock.lock();
+        try {
+            return s.getTickets().stream().map(Ticket::toHistoryJson).collect(Collectors.toList());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static SystemState newState() throws IOException {
+        SystemState s = new SystemState();
+        for (JsonNode userNode : App.loadUsers()) {
+            s.addUser(User.fromJson(userNode));
+        }
+        return s;
+    }
+
+    private static String ticket(final String title) {
+        return "{\"type\":\"FEATURE_REQUEST\",\"title\":\"" + title + "\","
+                + "\"businessPriority\":\"MEDIUM\",\"reportedBy\":\"theodora_reporter\","
+                + "\"businessValue\":\"M\",\"customerDemand\":\"HIGH\"}";
+    }
+
+    private static String page(final int after) {
+        return "{\"command\":\"viewTickets\",\"username\":\"gabriel_manager\","
+                + "\"timestamp\":\"2025-10-01\",\"limit\":" + PAGE
+                + ",\"cursor\":\"" + String.format("2025-10-01/%010d", after) + "\"}\n";
+    }
+
+    private int ticketCount() {
+        Lock lock = state.readLock();
+        lock.lock();
+        try {
+            return state.getTickets().size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -65,7 +65,17 @@ public class TestRunner {
                 Arguments.of("16 - Stability", "input/in_16_test_stability.json", "out/out_16_test_stability.json", "ref/ref_16_test_stability.json", 3),
                 Arguments.of("17 - Performance", "input/in_17_test_performance.json", "out/out_17_test_performance.json", "ref/ref_17_test_performance.json", 5),
                 Arguments.of("18 - Complex", "input/in_18_test_complex.json", "out/out_18_test_complex.json", "ref/ref_18_test_complex.json", 10),
-                Arguments.of("19 - ComplexEdgeCase", "input/in_19_test_complex_edge_case.json", "out/out_19_test_complex_edge_case.json", "ref/ref_19_test_complex_edge_case.json", 12)
+                Arguments.of("19 - ComplexEdgeCase", "input/in_19_test_complex_edge_case.json", "out/out_19_test_complex_edge_case.json", "ref/ref_19_test_complex_edge_case.json", 12),
+                Arguments.of("20 - MilestoneDependencies", "input/in_20_test_milestone_dependencies.json", "out/out_20_test_milestone_dependencies.json", "ref/ref_20_test_milestone_dependencies.json", 0),
+                Arguments.of("21 - SearchExplain", "input/in_21_test_search_explain.json", "out/out_21_test_search_explain.json", "ref/ref_21_test_search_explain.json", 0),
+                Arguments.of("22 - Paging", "input/in_22_test_paging.json", "out/out_22_test_paging.json", "ref/ref_22_test_paging.json", 0),
+                Arguments.of("23 - MetricsHistory", "input/in_23_test_metrics_history.json", "out/out_23_test_metrics_history.json", "ref/ref_23_test_metrics_history.json", 0),
+                Arguments.of("24 - PerformanceWindow", "input/in_24_test_performance_window.json", "out/out_24_test_performance_window.json", "ref/ref_24_test_performance_window.json", 0),
+                Arguments.of("25 - Bulk", "input/in_25_test_bulk.json", "out/out_25_test_bulk.json", "ref/ref_25_test_bulk.json", 0),
+                Arguments.of("26 - ImportTickets", "input/in_26_test_import_tickets.json", "out/out_26_test_import_tickets.json", "ref/ref_26_test_import_tickets.json", 0),
+                Arguments.of("27 - Fields", "input/in_27_test_fields.json", "out/out_27_test_fields.json", "ref/ref_27_test_fields.json", 0),
+                Arguments.of("28 - SmileInput", "input/in_28_test_smile_input.smile", "out/out_28_test_smile_input.json", "ref/ref_28_test_smile_input.json", 0),
+                Arguments.of("29 - CborInput", "input/in_29_test_cbor_input.cbor", "out/out_29_test_cbor_input.json", "ref/ref_29_test_cbor_input.json", 0)
         );
     }
 